@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class makes moves for the player using a MineSolver with a fixed time budget per solve, so each move
+ * costs at most a few milliseconds regardless of the board. Moves are made through MineLogic like the player's own.
+ * - hint: reveal a certainly safe tile, else flag a certain mine, else reveal the tile least likely to be a mine
+ * - safe moves: reveal every certainly safe tile and flag every certain mine found by one solve
+ *
+ * @author Badi Moore
+ */
+public class AutoPlayer {
+
+    private final long budgetNanos; // time budget of one solve
+    private final MoveBatch moves; // moves of the current batch, reused
+
+    /**
+     * Create new AutoPlayer
+     *
+     * @param budgetMillis time budget of one solve in milliseconds
+     */
+    public AutoPlayer(long budgetMillis) {
+        budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        moves = new MoveBatch();
+    }
+
+    /**
+     * Make the best move the solver finds within the budget
+     *
+     * @param logic the game
+     * @return was a move made? false if the game has no hidden tiles left
+     */
+    public boolean hint(MineLogic logic) {
+        SolverResult result = MineSolver.forGame(logic).solve(budgetNanos);
+        int width = logic.getWidth();
+        int height = logic.getHeight();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (result.isSafe(x, y)) {
+                    logic.leftMouse(x, y);
+                    return true;
+                }
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (result.isMine(x, y)) {
+                    logic.rightMouse(x, y);
+                    return true;
+                }
+            }
+        }
+        // no certain move, guess the safest tile
+        int best = result.getBestTile();
+        if (best == -1) {
+            return false;
+        }
+        logic.leftMouse(result.getX(best), result.getY(best));
+        return true;
+    }
+
+    /**
+     * Make all certain moves found by one solve. Tiles certain before a move stay certain after it,
+     * so all of them can be played without solving again. They are applied as one batch, so the game's change log and events
+     * cover the whole batch. Call this repeatedly to solve as far as possible without guessing.
+     *
+     * @param logic the game
+     * @return number of moves made, 0 if there was no certain move
+     */
+    public int playSafeMoves(MineLogic logic) {
+        SolverResult result = MineSolver.forGame(logic).solve(budgetNanos);
+        moves.clear();
+        for (int x = 0; x < logic.getWidth(); x++) {
+            for (int y = 0; y < logic.getHeight(); y++) {
+                // a safe tile revealed by an opening earlier in the batch is simply skipped by MineLogic
+                if (result.isSafe(x, y)) {
+                    moves.add(MoveBatch.REVEAL, x, y);
+                } else if (result.isMine(x, y)) {
+                    moves.add(MoveBatch.FLAG, x, y);
+                }
+            }
+        }
+        if (moves.size() > 0) {
+            logic.applyMoves(moves);
+        }
+        return moves.size();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps a few boards of each configuration generated in advance, so a new game can start without waiting for board generation.
+ * Boards are generated on one low priority background thread, which refills a configuration's boards whenever one is taken.
+ * If no board is ready, one is generated on the calling thread; the hit rate tells how often a ready board was available.
+ *
+ * @author Badi Moore
+ */
+public class BoardBank {
+
+    private final int size; // number of boards kept ready per configuration
+    private final ConcurrentHashMap<String, BlockingQueue<MineCoordinate[][]>> boards; // ready boards by configuration key
+    private final Set<String> refilling; // keys of configurations being refilled
+    private final ExecutorService worker;
+    private final AtomicLong hits; // boards taken from the bank
+    private final AtomicLong misses; // boards generated on demand because the bank was empty
+
+    /**
+     * Create new empty BoardBank
+     *
+     * @param size number of boards to keep ready per configuration
+     */
+    public BoardBank(int size) {
+        this.size = size;
+        boards = new ConcurrentHashMap<>();
+        refilling = ConcurrentHashMap.newKeySet();
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Minesweeper board generation");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY); // generation must not slow down the game
+            return thread;
+        });
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+    }
+
+    /**
+     * Start generating boards of a configuration in the background, so they are ready when the first game starts
+     *
+     * @param config board configuration
+     */
+    public void prepare(BoardConfig config) {
+        refill(config, getQueue(config));
+    }
+
+    /**
+     * Take a board for a new game. A ready board is returned at once, otherwise one is generated.
+     * Either way, the configuration's boards are refilled in the background.
+     *
+     * @param config board configuration
+     * @return new board
+     */
+    public MineCoordinate[][] take(BoardConfig config) {
+        BlockingQueue<MineCoordinate[][]> queue = getQueue(config);
+        MineCoordinate[][] board = queue.poll();
+        if (board != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            board = MineFieldFactory.createMineField(config);
+        }
+        refill(config, queue);
+        return board;
+    }
+
+    /**
+     * Get number of boards taken from the bank
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get number of boards generated on demand because none was ready
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Get the share of new games that got a ready board
+     *
+     * @return hit rate between 0 and 1, 0 if no boards have been taken
+     */
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : hits.get() / (double) total;
+    }
+
+    /**
+     * Get the queue of ready boards of a configuration, creating it if needed
+     *
+     * @param config board configuration
+     * @return queue of ready boards
+     */
+    private BlockingQueue<MineCoordinate[][]> getQueue(BoardConfig config) {
+        return boards.computeIfAbsent(config.getKey(), key -> new ArrayBlockingQueue<>(size));
+    }
+
+    /**
+     * Fill a configuration's queue on the background thread, unless it is already being filled
+     *
+     * @param config board configuration
+     * @param queue queue of ready boards
+     */
+    private void refill(BoardConfig config, BlockingQueue<MineCoordinate[][]> queue) {
+        if (queue.remainingCapacity() == 0 || !refilling.add(config.getKey())) {
+            return;
+        }
+        worker.execute(() -> {
+            try {
+                while (queue.remainingCapacity() > 0) {
+                    queue.offer(MineFieldFactory.createMineField(config));
+                }
+            } finally {
+                refilling.remove(config.getKey());
+            }
+            // a board may have been taken after the queue was full but before the refill ended
+            refill(config, queue);
+        });
+    }
+}
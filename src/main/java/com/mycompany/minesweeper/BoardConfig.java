@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+/**
+ * This class describes the settings of one board configuration: size and number of mines.
+ * Each configuration has its own high score table, identified by the configuration's key.
+ *
+ * @author Badi Moore
+ */
+public class BoardConfig {
+
+    public static final BoardConfig EASY = new BoardConfig("easy", MineConstants.EASY_WIDTH, MineConstants.EASY_HEIGHT, MineConstants.EASY_MINES);
+    public static final BoardConfig MEDIUM = new BoardConfig("medium", MineConstants.MEDIUM_WIDTH, MineConstants.MEDIUM_HEIGHT, MineConstants.MEDIUM_MINES);
+    public static final BoardConfig EXPERT = new BoardConfig("expert", MineConstants.EXPERT_WIDTH, MineConstants.EXPERT_HEIGHT, MineConstants.EXPERT_MINES);
+
+    private final String name; // name of a preset difficulty, or null for custom configurations
+    private final int width;
+    private final int height;
+    private final int mines;
+
+    /**
+     * Create new custom board configuration
+     *
+     * @param width number of tiles in x-dimension
+     * @param height number of tiles in y-dimension
+     * @param mines number of mines
+     */
+    public BoardConfig(int width, int height, int mines) {
+        this(null, width, height, mines);
+    }
+
+    /**
+     * Create new board configuration
+     *
+     * @param name name of preset difficulty, or null for custom configuration
+     * @param width number of tiles in x-dimension
+     * @param height number of tiles in y-dimension
+     * @param mines number of mines
+     */
+    private BoardConfig(String name, int width, int height, int mines) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.mines = mines;
+    }
+
+    /**
+     * Get the preset configuration for a difficulty
+     *
+     * @param difficulty "easy", "medium" or "expert"
+     * @return configuration, or null if difficulty is unknown
+     */
+    public static BoardConfig forDifficulty(String difficulty) {
+        switch (difficulty) {
+            case "easy":
+                return EASY;
+            case "medium":
+                return MEDIUM;
+            case "expert":
+                return EXPERT;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Get the key identifying this configuration's high score table.
+     * Preset difficulties use their name (e.g. "easy"), custom configurations use
+     * &lt;width&gt;x&lt;height&gt;x&lt;mines&gt;.
+     *
+     * @return key of configuration
+     */
+    public String getKey() {
+        if (name != null) {
+            return name;
+        }
+        return width + "x" + height + "x" + mines;
+    }
+
+    /**
+     * Get board width
+     *
+     * @return number of tiles in x-dimension
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get board height
+     *
+     * @return number of tiles in y-dimension
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get number of mines
+     *
+     * @return number of mines
+     */
+    public int getMines() {
+        return mines;
+    }
+
+    @Override
+    public String toString() {
+        return getKey();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * This class encodes board updates sent to spectators of a game.
+ * Deltas contain only the tiles changed by one move, so their size depends on the number of changed tiles, not the size of the board.
+ * Keyframes contain the whole board and let spectators start watching or recover after missing deltas.
+ *
+ * Each frame is: type (byte, KEYFRAME or DELTA), payload length (varint), payload. Varints are unsigned LEB128 (7 bits per byte, low bits first).
+ * Tiles are numbered row by row (y * width + x) and use the codes of GameSession.getTile.
+ * - keyframe payload: sequence number (varint), width (varint), height (varint), win state (byte), unflagged mines (varint),
+ *   then all tiles, two per byte (first tile in the low 4 bits)
+ * - delta payload: sequence number (varint), win state (byte), unflagged mines (varint), number of changed tiles (varint),
+ *   then for each changed tile in increasing tile number order: varint of (tile number - previous tile number) * 16 + tile code.
+ *   The previous tile number starts at 0.
+ * A delta with sequence number n applies to the board of sequence number n - 1; a spectator that missed a delta waits for the next keyframe.
+ *
+ * @author Badi Moore
+ */
+public class BoardDelta {
+
+    public static final byte KEYFRAME = 'K';
+    public static final byte DELTA = 'D';
+
+    /**
+     * Encode the tiles changed by the last move of a game
+     *
+     * @param game the game
+     * @param sequence sequence number of the move
+     * @return delta frame
+     */
+    public static byte[] encodeDelta(GameSession game, long sequence) {
+        MineLogic logic = game.getLogic();
+        int count = logic.getChangeCount();
+        int[] tiles = new int[count];
+        for (int i = 0; i < count; i++) {
+            tiles[i] = logic.getChangedY(i) * game.getWidth() + logic.getChangedX(i);
+        }
+        Arrays.sort(tiles);
+        // a tile may change more than once in a move, only its final state is sent
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || tiles[i] != tiles[unique - 1]) {
+                tiles[unique++] = tiles[i];
+            }
+        }
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(16 + unique * 2);
+        writeVarint(payload, sequence);
+        payload.write(logic.getWinState());
+        writeVarint(payload, logic.getMines());
+        writeVarint(payload, unique);
+        int previous = 0;
+        for (int i = 0; i < unique; i++) {
+            int tile = tiles[i];
+            writeVarint(payload, (long) (tile - previous) * 16 + game.getTile(tile % game.getWidth(), tile / game.getWidth()));
+            previous = tile;
+        }
+        return frame(DELTA, payload);
+    }
+
+    /**
+     * Encode the whole board of a game
+     *
+     * @param game the game
+     * @param sequence sequence number of the last move
+     * @return keyframe
+     */
+    public static byte[] encodeKeyframe(GameSession game, long sequence) {
+        int width = game.getWidth();
+        int height = game.getHeight();
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(24 + (width * height + 1) / 2);
+        writeVarint(payload, sequence);
+        writeVarint(payload, width);
+        writeVarint(payload, height);
+        payload.write(game.getLogic().getWinState());
+        writeVarint(payload, game.getLogic().getMines());
+        int packed = 0;
+        int tile = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                packed |= game.getTile(x, y) << ((tile & 1) * 4);
+                if ((tile & 1) == 1) {
+                    payload.write(packed);
+                    packed = 0;
+                }
+                tile++;
+            }
+        }
+        if ((tile & 1) == 1) {
+            payload.write(packed);
+        }
+        return frame(KEYFRAME, payload);
+    }
+
+    /**
+     * Put a payload into a frame
+     *
+     * @param type frame type
+     * @param payload frame payload
+     * @return the frame
+     */
+    private static byte[] frame(byte type, ByteArrayOutputStream payload) {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.size() + 6);
+        frame.write(type);
+        writeVarint(frame, payload.size());
+        frame.writeBytes(payload.toByteArray());
+        return frame.toByteArray();
+    }
+
+    /**
+     * Write an unsigned varint
+     *
+     * @param out stream to write to
+     * @param value non-negative value
+     */
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while (value >= 0x80) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * This class paints the tiles changed by moves progressively. Moves run on the game thread, which copies the states of the changed tiles
+ * and hands them over in chunks; a Swing timer then updates their buttons on the event dispatch thread, spending at most
+ * MineConstants.PAINT_FRAME_BUDGET ms per frame. Even a move changing millions of tiles never holds the event dispatch thread
+ * for longer than that, so the window keeps repainting and taking input while the board is painted.
+ * Each game has its own painter; stopping it drops the tiles not yet painted.
+ *
+ * @author Badi Moore
+ */
+public class BoardPainter {
+
+    private final MineButton[] buttons; // buttons by x * height + y
+    private final int height;
+    private final Consumer<MineButton> paintButton; // updates one button
+    private final ConcurrentLinkedQueue<int[]> chunks; // changed tiles as pairs of x * height + y and copied state, from the game thread
+    private final Timer timer; // paints one frame per tick
+    private int[] chunk; // chunk being painted, or null
+    private int position; // position of next tile of chunk to paint
+    private volatile boolean stopped; // has the game ended or been replaced?
+
+    /**
+     * Create new painter
+     *
+     * @param buttons buttons of the game by x * height + y
+     * @param height board height
+     * @param paintButton updates one button to show its tile
+     */
+    public BoardPainter(MineButton[] buttons, int height, Consumer<MineButton> paintButton) {
+        this.buttons = buttons;
+        this.height = height;
+        this.paintButton = paintButton;
+        chunks = new ConcurrentLinkedQueue<>();
+        timer = new Timer(MineConstants.PAINT_FRAME_INTERVAL, event -> paintFrame());
+        timer.setInitialDelay(0); // the first frame of a move is painted at once
+        stopped = false;
+    }
+
+    /**
+     * Copy the states of the tiles changed by a game's last move and queue them for painting. Call this on the game thread, right after the move.
+     *
+     * @param logic the game
+     */
+    public void add(MineLogic logic) {
+        queue(logic, logic.getChangeCount(), false);
+    }
+
+    /**
+     * Copy the states of all tiles of a game and queue them for painting, after the tiles queued before. Call this on the game thread.
+     *
+     * @param logic the game
+     */
+    public void addAll(MineLogic logic) {
+        queue(logic, buttons.length, true);
+    }
+
+    /**
+     * Copy the states of tiles in chunks, queue the chunks and start painting them
+     *
+     * @param logic the game
+     * @param count number of tiles to queue
+     * @param allTiles queue all tiles in index order instead of the tiles in the game's change log
+     */
+    private void queue(MineLogic logic, int count, boolean allTiles) {
+        boolean lost = logic.getWinState() == MineLogic.LOST;
+        for (int start = 0; start < count && !stopped; start += MineConstants.PAINT_CHUNK_SIZE) {
+            int[] tiles = new int[Math.min(MineConstants.PAINT_CHUNK_SIZE, count - start) * 2];
+            for (int i = 0; i < tiles.length; i += 2) {
+                int change = start + i / 2;
+                int tile = allTiles ? change : logic.getChangedX(change) * height + logic.getChangedY(change);
+                tiles[i] = tile;
+                tiles[i + 1] = buttons[tile].readState(lost);
+            }
+            chunks.add(tiles);
+        }
+        // the timer is started on the event dispatch thread, it stops itself once everything has been painted
+        SwingUtilities.invokeLater(() -> {
+            if (!stopped && !timer.isRunning()) {
+                timer.start();
+            }
+        });
+    }
+
+    /**
+     * Copy the states of all tiles, e.g. to paint the whole board once the game has ended. Call this on the game thread.
+     *
+     * @param showMines show the mines as revealed, as when the game has been lost
+     * @return states of tiles by x * height + y, see GameState
+     */
+    public int[] copyTiles(boolean showMines) {
+        int[] tiles = new int[buttons.length];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = buttons[i].readState(showMines);
+        }
+        return tiles;
+    }
+
+    /**
+     * Stop painting and drop the tiles not yet painted. Call this on the event dispatch thread.
+     */
+    public void stop() {
+        stopped = true;
+        timer.stop();
+        chunks.clear();
+        chunk = null;
+    }
+
+    /**
+     * Has the painter been stopped?
+     *
+     * @return is painter stopped?
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Paint queued tiles until the frame's time budget is spent or nothing is left
+     */
+    private void paintFrame() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MineConstants.PAINT_FRAME_BUDGET);
+        do {
+            if (chunk == null || position == chunk.length) {
+                chunk = chunks.poll();
+                position = 0;
+                if (chunk == null) {
+                    timer.stop();
+                    return;
+                }
+            }
+            // check the time every few tiles only, reading the clock costs more than painting a tile
+            int end = Math.min(position + 128, chunk.length);
+            for (; position < end; position += 2) {
+                MineButton button = buttons[chunk[position]];
+                button.setState(chunk[position + 1]);
+                paintButton.accept(button);
+            }
+        } while (System.nanoTime() < deadline);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+/**
+ * This class holds difficulty statistics of a board, computed by MineFieldFactory.computeStats:
+ * - 3BV (Bechtel's Board Benchmark Value): the least number of clicks needed to reveal the board without flagging,
+ *   i.e. one click per opening plus one per numbered tile not bordering an opening
+ * - openings: connected regions of empty tiles, each revealed by one click
+ * - islands: connected groups of numbered tiles not bordering an opening
+ *
+ * @author Badi Moore
+ */
+public class BoardStats {
+
+    private final int bbbv;
+    private final int openings;
+    private final int islands;
+
+    /**
+     * Create new BoardStats
+     *
+     * @param bbbv 3BV of board
+     * @param openings number of openings
+     * @param islands number of islands
+     */
+    public BoardStats(int bbbv, int openings, int islands) {
+        this.bbbv = bbbv;
+        this.openings = openings;
+        this.islands = islands;
+    }
+
+    /**
+     * Get the 3BV of the board
+     *
+     * @return 3BV
+     */
+    public int getBbbv() {
+        return bbbv;
+    }
+
+    /**
+     * Get number of openings
+     *
+     * @return number of openings
+     */
+    public int getOpenings() {
+        return openings;
+    }
+
+    /**
+     * Get number of islands
+     *
+     * @return number of islands
+     */
+    public int getIslands() {
+        return islands;
+    }
+
+    @Override
+    public String toString() {
+        return "3BV " + bbbv + ", " + openings + " openings, " + islands + " islands";
+    }
+}
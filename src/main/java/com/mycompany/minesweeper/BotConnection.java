@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * This class is one connection to the BotServer. It reads request frames, runs them against the connection's games
+ * and collects the responses, which are written in one go once all requests read so far have been handled.
+ * See BotServer for the protocol. Only the connection's selector thread uses it.
+ *
+ * @author Badi Moore
+ */
+public class BotConnection {
+
+    private final SocketChannel channel;
+    private final HashMap<Integer, GameSession> games;
+    private int nextGameId;
+    private final ByteBuffer in; // received bytes not yet handled, in write mode
+    private ByteBuffer out; // responses not yet sent, in write mode
+    private boolean blocked; // are received requests waiting until enough responses have been sent?
+    private final MoveBatch batch; // moves of the current OP_MOVES request, reused
+
+    /**
+     * Create new connection
+     *
+     * @param channel the connection's channel
+     */
+    public BotConnection(SocketChannel channel) {
+        this.channel = channel;
+        games = new HashMap<>();
+        nextGameId = 1;
+        in = ByteBuffer.allocate(MineConstants.BOT_BUFFER_SIZE);
+        out = ByteBuffer.allocate(MineConstants.BOT_BUFFER_SIZE);
+        batch = new MoveBatch();
+    }
+
+    /**
+     * Read available requests, handle every complete one and send the responses
+     *
+     * @throws IOException if the connection is closed or a request frame is invalid
+     */
+    public void read() throws IOException {
+        if (channel.read(in) < 0) {
+            throw new IOException("Connection closed");
+        }
+        handleRequests();
+        write();
+    }
+
+    /**
+     * Send as much of the collected responses as the channel accepts.
+     * Requests left unhandled because too many responses were waiting are handled as soon as enough has been sent.
+     *
+     * @throws IOException if the connection is closed or a request frame is invalid
+     */
+    public void write() throws IOException {
+        send();
+        while (blocked && out.position() <= MineConstants.BOT_MAX_PENDING_OUTPUT) {
+            handleRequests();
+            send();
+        }
+    }
+
+    /**
+     * Write as much of the output as the channel accepts
+     *
+     * @throws IOException if the connection is closed
+     */
+    private void send() throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+    }
+
+    /**
+     * Get the events the selector should wait for.
+     * Reading stops while too many responses are waiting to be sent, so a bot that doesn't read its responses can't use up the server's memory.
+     *
+     * @return interest set for the connection's selection key
+     */
+    public int getInterestOps() {
+        if (out.position() == 0) {
+            return SelectionKey.OP_READ;
+        }
+        if (out.position() > MineConstants.BOT_MAX_PENDING_OUTPUT) {
+            return SelectionKey.OP_WRITE;
+        }
+        return SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+    }
+
+    /**
+     * Handle the complete requests received so far. Handling stops while too many responses are waiting to be sent,
+     * so one read can't make the output grow without bound. The remaining requests stay in the input until write has sent enough.
+     *
+     * @throws IOException if a request frame is invalid
+     */
+    private void handleRequests() throws IOException {
+        in.flip();
+        while (in.remaining() >= 4 && out.position() <= MineConstants.BOT_MAX_PENDING_OUTPUT) {
+            int length = in.getInt(in.position());
+            if (length < 1 || length > MineConstants.BOT_MAX_REQUEST) {
+                throw new IOException("Invalid request length " + length);
+            }
+            if (in.remaining() < 4 + length) {
+                break; // rest of the frame hasn't arrived yet
+            }
+            int end = in.position() + 4 + length;
+            in.position(in.position() + 4);
+            ByteBuffer request = in.slice();
+            request.limit(length);
+            handle(request);
+            in.position(end);
+        }
+        blocked = in.remaining() >= 4 && out.position() > MineConstants.BOT_MAX_PENDING_OUTPUT;
+        in.compact();
+    }
+
+    /**
+     * Close the connection
+     */
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // closing anyway
+        }
+    }
+
+    /**
+     * Handle one request and add its response to the output
+     *
+     * @param request payload of the request frame
+     */
+    private void handle(ByteBuffer request) {
+        byte op = request.get();
+        int start = beginResponse(op);
+        try {
+            switch (op) {
+                case BotServer.OP_NEW:
+                    newGame(request.getShort() & 0xFFFF, request.getShort() & 0xFFFF, request.getShort() & 0xFFFF);
+                    break;
+                case BotServer.OP_MOVE:
+                    move(getGame(request.getInt()), request.get(), request.getShort() & 0xFFFF, request.getShort() & 0xFFFF);
+                    break;
+                case BotServer.OP_STATE:
+                    state(getGame(request.getInt()));
+                    break;
+                case BotServer.OP_MOVES:
+                    moves(getGame(request.getInt()), request);
+                    break;
+                case BotServer.OP_END:
+                    if (games.remove(request.getInt()) == null) {
+                        throw new IllegalArgumentException("No such game");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown op " + op);
+            }
+        } catch (IllegalArgumentException e) {
+            error(start, op, e.getMessage());
+        } catch (BufferUnderflowException e) {
+            error(start, op, "Request too short");
+        }
+        endResponse(start);
+    }
+
+    /**
+     * Create a new game
+     *
+     * @param width number of tiles in x-dimension
+     * @param height number of tiles in y-dimension
+     * @param mines number of mines
+     */
+    private void newGame(int width, int height, int mines) {
+        int tiles = width * height;
+        if (width == 0 || height == 0 || tiles > MineConstants.SERVER_MAX_TILES) {
+            throw new IllegalArgumentException("Board must have 1 to " + MineConstants.SERVER_MAX_TILES + " tiles");
+        }
+        // one tile must stay free, so a mine on the first revealed tile can be moved
+        if (mines >= tiles) {
+            throw new IllegalArgumentException("Board must have 0 to " + (tiles - 1) + " mines");
+        }
+        if (games.size() >= MineConstants.BOT_MAX_GAMES) {
+            throw new IllegalArgumentException("At most " + MineConstants.BOT_MAX_GAMES + " games per connection");
+        }
+        int id = nextGameId++;
+        games.put(id, GameSession.create(id, width, height, mines));
+        ensureOutput(8);
+        out.putInt(id).putShort((short) width).putShort((short) height);
+    }
+
+    /**
+     * Make a move and add the changed tiles to the response
+     *
+     * @param game the game
+     * @param type move type
+     * @param x X-coordinate of tile from left
+     * @param y Y-coordinate of tile from top
+     */
+    private void move(GameSession game, byte type, int x, int y) {
+        switch (type) {
+            case BotServer.MOVE_REVEAL:
+                game.move("reveal", x, y);
+                break;
+            case BotServer.MOVE_FLAG:
+                game.move("flag", x, y);
+                break;
+            case BotServer.MOVE_CHORD:
+                game.move("chord", x, y);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown move type " + type);
+        }
+        putChanges(game);
+    }
+
+    /**
+     * Make a batch of moves and add the tiles changed by all of them to the response
+     *
+     * @param game the game
+     * @param request rest of the request: number of moves, then type, x and y of each move
+     */
+    private void moves(GameSession game, ByteBuffer request) {
+        int count = request.getShort() & 0xFFFF;
+        if (count > MineConstants.BOT_MAX_BATCH) {
+            throw new IllegalArgumentException("At most " + MineConstants.BOT_MAX_BATCH + " moves per batch");
+        }
+        batch.clear();
+        for (int i = 0; i < count; i++) {
+            // the protocol's move types have the same values as MoveBatch's
+            batch.add(request.get(), request.getShort() & 0xFFFF, request.getShort() & 0xFFFF);
+        }
+        game.applyMoves(batch);
+        putChanges(game);
+    }
+
+    /**
+     * Add the win state and the tiles changed by the last move to the response
+     *
+     * @param game the game
+     */
+    private void putChanges(GameSession game) {
+        MineLogic logic = game.getLogic();
+        int changes = logic.getChangeCount();
+        ensureOutput(7 + changes * 5);
+        out.put((byte) logic.getWinState()).putShort((short) logic.getMines()).putInt(changes);
+        for (int i = 0; i < changes; i++) {
+            int changedX = logic.getChangedX(i);
+            int changedY = logic.getChangedY(i);
+            out.putShort((short) changedX).putShort((short) changedY).put((byte) game.getTile(changedX, changedY));
+        }
+    }
+
+    /**
+     * Add the whole board of a game to the response
+     *
+     * @param game the game
+     */
+    private void state(GameSession game) {
+        MineLogic logic = game.getLogic();
+        ensureOutput(7 + game.getWidth() * game.getHeight());
+        out.put((byte) logic.getWinState()).putShort((short) logic.getMines())
+                .putShort((short) game.getWidth()).putShort((short) game.getHeight());
+        for (int y = 0; y < game.getHeight(); y++) {
+            for (int x = 0; x < game.getWidth(); x++) {
+                out.put((byte) game.getTile(x, y));
+            }
+        }
+    }
+
+    /**
+     * Get a game of this connection
+     *
+     * @param id game id
+     * @return the game
+     */
+    private GameSession getGame(int id) {
+        GameSession game = games.get(id);
+        if (game == null) {
+            throw new IllegalArgumentException("No such game");
+        }
+        return game;
+    }
+
+    /**
+     * Start a response: reserve room for the frame length, then add the op code and OK status
+     *
+     * @param op op code of the request
+     * @return position of the response in the output
+     */
+    private int beginResponse(byte op) {
+        ensureOutput(6);
+        int start = out.position();
+        out.putInt(0).put(op).put(BotServer.STATUS_OK);
+        return start;
+    }
+
+    /**
+     * Replace the response started at the given position with an error response
+     *
+     * @param start position of the response in the output
+     * @param op op code of the request
+     * @param message error message
+     */
+    private void error(int start, byte op, String message) {
+        byte[] bytes = (message == null ? "Error" : message).getBytes(StandardCharsets.UTF_8);
+        out.position(start);
+        ensureOutput(8 + bytes.length);
+        out.putInt(0).put(op).put(BotServer.STATUS_ERROR).putShort((short) bytes.length).put(bytes);
+    }
+
+    /**
+     * Finish a response by filling in its frame length
+     *
+     * @param start position of the response in the output
+     */
+    private void endResponse(int start) {
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    /**
+     * Make sure the output has room for the given number of bytes
+     *
+     * @param bytes number of bytes to be added
+     */
+    private void ensureOutput(int bytes) {
+        if (out.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+            out.flip();
+            bigger.put(out);
+            out = bigger;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class is a server for automated players, using a compact binary protocol over TCP instead of JSON.
+ * Each connection has its own games. Requests can be pipelined: a bot may send many requests without waiting,
+ * the responses come back in the same order, and all responses to the requests read at once are sent together.
+ *
+ * Every request and response is a frame: payload length (int), then the payload. All numbers are big-endian, u16 = unsigned short.
+ * Requests start with an op code (byte):
+ * - OP_NEW: width (u16), height (u16), mines (u16), at most MineConstants.BOT_MAX_GAMES games per connection
+ * - OP_MOVE: game id (int), move type (byte, MOVE_REVEAL, MOVE_FLAG or MOVE_CHORD), x (u16), y (u16)
+ * - OP_STATE: game id (int)
+ * - OP_END: game id (int)
+ * - OP_MOVES: game id (int), number of moves (u16, at most MineConstants.BOT_MAX_BATCH), then type (byte), x (u16) and y (u16) of each move
+ * Responses start with the request's op code (byte) and a status (byte, STATUS_OK or STATUS_ERROR).
+ * An error is followed by the message: length (u16) and UTF-8 bytes. Successful responses are followed by:
+ * - OP_NEW: game id (int), width (u16), height (u16)
+ * - OP_MOVE: win state (byte, MineLogic.UNFINISHED/WON/LOST), unflagged mines (u16), number of changed tiles (int),
+ *   then x (u16), y (u16) and tile (byte) of each tile changed by the move. Tiles use the codes of GameSession.getTile.
+ * - OP_STATE: win state (byte), unflagged mines (u16), width (u16), height (u16), then every tile (byte) row by row
+ * - OP_END: nothing
+ * - OP_MOVES: like OP_MOVE, with the tiles changed by all moves of the batch
+ *
+ * Connections are spread over one selector thread per processor; a connection's games are only used by its own thread, so no locks are needed.
+ *
+ * @author Badi Moore
+ */
+public class BotServer {
+
+    public static final byte OP_NEW = 1;
+    public static final byte OP_MOVE = 2;
+    public static final byte OP_STATE = 3;
+    public static final byte OP_END = 4;
+    public static final byte OP_MOVES = 5;
+    public static final byte MOVE_REVEAL = 0;
+    public static final byte MOVE_FLAG = 1;
+    public static final byte MOVE_CHORD = 2;
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ERROR = 1;
+
+    private final ServerSocketChannel serverChannel;
+    private final Worker[] workers;
+    private volatile boolean running;
+
+    /**
+     * One selector thread and the connections assigned to it
+     */
+    private class Worker implements Runnable {
+
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<SocketChannel> newChannels; // accepted, but not yet registered with the selector
+
+        /**
+         * Create new worker
+         *
+         * @throws IOException if the selector can't be opened
+         */
+        private Worker() throws IOException {
+            selector = Selector.open();
+            newChannels = new ConcurrentLinkedQueue<>();
+        }
+
+        /**
+         * Hand a new connection to this worker
+         *
+         * @param channel connection
+         */
+        private void add(SocketChannel channel) {
+            newChannels.add(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                } catch (IOException e) {
+                    break;
+                }
+                SocketChannel channel;
+                while ((channel = newChannels.poll()) != null) {
+                    try {
+                        channel.register(selector, SelectionKey.OP_READ, new BotConnection(channel));
+                    } catch (ClosedChannelException e) {
+                        // closed before it was registered, nothing to do
+                    }
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    BotConnection connection = (BotConnection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                        if (key.isValid()) {
+                            key.interestOps(connection.getInterestOps());
+                        }
+                    } catch (IOException e) {
+                        // connection closed or broke the protocol, its games are dropped with it
+                        key.cancel();
+                        connection.close();
+                    }
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                ((BotConnection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // already closing
+            }
+        }
+    }
+
+    /**
+     * Create new bot server. The server doesn't accept connections until it is started.
+     *
+     * @param port port to listen on, 0 for any free port
+     * @throws IOException if the port can't be opened
+     */
+    public BotServer(int port) throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        workers = new Worker[Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker();
+        }
+    }
+
+    /**
+     * Start accepting connections
+     */
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers.length; i++) {
+            new Thread(workers[i], "Minesweeper bot server " + i).start();
+        }
+        new Thread(this::accept, "Minesweeper bot server accept").start();
+    }
+
+    /**
+     * Stop accepting connections and close all connections
+     */
+    public void stop() {
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            // already closing
+        }
+        for (Worker worker : workers) {
+            worker.selector.wakeup();
+        }
+    }
+
+    /**
+     * Get the port the server listens on
+     *
+     * @return port number
+     * @throws IOException if the server has been stopped
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Accept connections and hand them to the workers in turn, until the server is stopped
+     */
+    private void accept() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                // responses are already batched, so don't wait to fill a TCP packet
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                workers[next].add(channel);
+                next = (next + 1) % workers.length;
+            } catch (IOException e) {
+                // server channel closed by stop()
+            }
+        }
+    }
+
+    /**
+     * Run a bot server until the process is stopped
+     *
+     * @param args optional port number, MineConstants.BOTSERVER_PORT by default
+     * @throws IOException if the port can't be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : MineConstants.BOTSERVER_PORT;
+        BotServer server = new BotServer(port);
+        server.start();
+        System.out.println("Bot server listening on port " + server.getPort());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+/**
+ * This class measures the speed of the game engine without the user interface: generating boards,
+ * setting up games (opening index and adjacency counts), and playing them through.
+ * A game is played by revealing every safe tile, flagging every mine and then double-clicking every tile.
+ * Each phase is timed separately, after warm-up rounds that let the JIT compile the engine. Any board topology can be measured.
+ *
+ * @author Badi Moore
+ */
+public class EngineBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5; // rounds run before measuring
+
+    private static final String[] KIND_NAMES = {"rectangle", "torus", "hex", "cube"}; // names of topologies by kind
+
+    private final Topology topology;
+    private final int width; // width of the grid storing the board
+    private final int height;
+    private final int mines;
+    private long generateNanos; // total time spent generating boards
+    private long setupNanos; // total time spent setting up games
+    private long playNanos; // total time spent playing games
+    private int checksum; // keeps the JIT from removing the measured work
+
+    /**
+     * Create new benchmark
+     *
+     * @param topology topology of board
+     * @param mines number of mines
+     */
+    public EngineBenchmark(Topology topology, int mines) {
+        this.topology = topology;
+        width = topology.getWidth();
+        height = topology.getHeight();
+        this.mines = mines;
+    }
+
+    /**
+     * Run the benchmark and print the average time of each phase
+     *
+     * @param rounds number of measured rounds, each on a new board
+     */
+    public void run(int rounds) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runRound();
+        }
+        generateNanos = 0;
+        setupNanos = 0;
+        playNanos = 0;
+        for (int i = 0; i < rounds; i++) {
+            runRound();
+        }
+        System.out.printf("%s %dx%dx%d, %d mines, %d rounds%n", KIND_NAMES[topology.getKind()],
+                width / topology.getDepth(), height, topology.getDepth(), mines, rounds);
+        System.out.printf("  generate: %8.3f ms%n", generateNanos / 1e6 / rounds);
+        System.out.printf("  setup:    %8.3f ms%n", setupNanos / 1e6 / rounds);
+        System.out.printf("  play:     %8.3f ms%n", playNanos / 1e6 / rounds);
+        System.out.printf("  total:    %8.3f ns per tile%n", (double) (generateNanos + setupNanos + playNanos) / rounds / (width * height));
+        System.out.println("  (checksum " + checksum + ")");
+    }
+
+    /**
+     * Generate, set up and play one board, adding the times of each phase to the totals
+     */
+    private void runRound() {
+        long start = System.nanoTime();
+        MineCoordinate[][] grid = MineFieldFactory.createMineField(topology, mines);
+        long generated = System.nanoTime();
+        MineLogic logic = new MineLogic(grid, mines, false, topology);
+        long setUp = System.nanoTime();
+        play(grid, logic);
+        long played = System.nanoTime();
+        generateNanos += generated - start;
+        setupNanos += setUp - generated;
+        playNanos += played - setUp;
+        checksum += logic.getWinState() + logic.getChangeCount();
+    }
+
+    /**
+     * Play a game through: reveal every safe tile, flag every mine, then double-click every tile.
+     * The first reveal is on a safe tile, so no mine is moved.
+     *
+     * @param grid the game's board
+     * @param logic the game
+     */
+    private void play(MineCoordinate[][] grid, MineLogic logic) {
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (!grid[x][y].isMine()) {
+                    logic.leftMouse(x, y);
+                }
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (grid[x][y].isMine()) {
+                    logic.rightMouse(x, y);
+                }
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                logic.doubleClick(x, y);
+            }
+        }
+    }
+
+    /**
+     * Run the benchmark on an expert board and on large boards of each topology, or on a board given on the command line
+     *
+     * @param args optional width, height, mines, number of rounds, topology (rectangle, torus, hex or cube) and cube depth
+     */
+    public static void main(String[] args) {
+        if (args.length >= 3) {
+            int width = Integer.parseInt(args[0]);
+            int height = Integer.parseInt(args[1]);
+            int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+            String kind = args.length > 4 ? args[4] : KIND_NAMES[Topology.RECTANGLE];
+            int depth = args.length > 5 ? Integer.parseInt(args[5]) : width;
+            Topology topology;
+            switch (kind) {
+                case "torus":
+                    topology = Topology.torus(width, height);
+                    break;
+                case "hex":
+                    topology = Topology.hex(width, height);
+                    break;
+                case "cube":
+                    topology = Topology.cube(width, height, depth);
+                    break;
+                default:
+                    topology = Topology.rectangle(width, height);
+            }
+            new EngineBenchmark(topology, Integer.parseInt(args[2])).run(rounds);
+            return;
+        }
+        new EngineBenchmark(Topology.rectangle(MineConstants.EXPERT_WIDTH, MineConstants.EXPERT_HEIGHT), MineConstants.EXPERT_MINES).run(2000);
+        new EngineBenchmark(Topology.rectangle(1000, 1000), 150000).run(20);
+        new EngineBenchmark(Topology.torus(1000, 1000), 150000).run(20);
+        new EngineBenchmark(Topology.hex(1000, 1000), 100000).run(20);
+        new EngineBenchmark(Topology.cube(100, 100, 100), 40000).run(20);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+/**
+ * Interface for classes that want to be told about file errors, e.g. to show them to the user.
+ * Listeners are registered with FileHandler.addErrorListener. They may be called from the I/O thread.
+ *
+ * @author Badi Moore
+ */
+public interface FileErrorListener {
+
+    /**
+     * Called when reading or writing a file has failed
+     *
+     * @param message description of the error
+     */
+    void fileError(String message);
+}
@@ -22,49 +22,72 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import javax.swing.ImageIcon;
-import javax.swing.JOptionPane;
 
 /**
  * This class handles reading/writing data to disk. It has methods for reading and writing text files, loading icon images and checking if a file exists.
  *
+ * Slow file operations can be run asynchronously on the I/O thread, so they never block the event dispatch thread.
+ * All asynchronous operations run on the same thread, one at a time in the order they were started.
+ * Errors are not shown by this class, they are reported to the FileErrorListeners, which the UI registers to show them to the user.
+ *
  * @author Badi Moore
  */
 public class FileHandler {
 
+    // single thread for all asynchronous file operations, so they never run at the same time
+    private static final ExecutorService IO_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Minesweeper I/O");
+        thread.setDaemon(true); // the I/O thread must not keep the game running after its window is closed
+        return thread;
+    });
+    private static final CopyOnWriteArrayList<FileErrorListener> ERROR_LISTENERS = new CopyOnWriteArrayList<>();
+
+    static {
+        // let queued writes finish when the game exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            IO_EXECUTOR.shutdown();
+            try {
+                IO_EXECUTOR.awaitTermination(MineConstants.IO_SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+
     /**
      * Reads a text file from disk, and returns it as a String
      * 
      * @param filename the name of the file
-     * @return the text from the file
+     * @return the text from the file, or an empty String if it couldn't be read
      */
     public String readText(String filename) {
-        StringBuilder text = new StringBuilder();
-        String nextLine = "";
-
         try {
-            BufferedReader br;
-            // check the first character of the filename.
-            // If it starts with "/", the file is inside the JAR archive and needs to be loaded as an input stream using the getResourceAsStream() method.
-            // otherwise a FileReader is used
-            if (filename.startsWith("/")) {
-                br = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream(filename)));
-            } else {
-                br = new BufferedReader(new FileReader(filename));
-            }
-            // go through each line of the file and append to StringBuilder
-            while ((nextLine = br.readLine()) != null) {
-                text.append(nextLine + "\n");
-            }
-            br.close();
-            return text.toString();
+            return read(filename);
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(null, "Error reading file: " + e.getMessage(), "File error", JOptionPane.ERROR_MESSAGE);
+            reportError("Error reading file: " + e.getMessage());
             return "";
         }
     }
 
+    /**
+     * Reads a text file on the I/O thread
+     * 
+     * @param filename the name of the file
+     * @return future completed with the text from the file, or an empty String if it couldn't be read
+     */
+    public CompletableFuture<String> readTextAsync(String filename) {
+        return supplyAsync(() -> readText(filename));
+    }
+
     /**
      * Writes a text file to disk
      * 
@@ -73,18 +96,80 @@ public class FileHandler {
      * @return was the file successfully written
      */
     public boolean writeText(String filename, String text) {
-
-        try {
-            BufferedWriter br = new BufferedWriter(new FileWriter(filename));
-            br.write(text);
-            br.close();
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filename))) {
+            bw.write(text);
             return true;
         } catch (IOException e) {
-            JOptionPane.showMessageDialog(null, "Error writing file: " + e.getMessage(), "File error", JOptionPane.ERROR_MESSAGE);
+            reportError("Error writing file: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Writes a text file on the I/O thread
+     * 
+     * @param filename the name of the file to write
+     * @param text the text to write to the file
+     * @return future completed with whether the file was successfully written
+     */
+    public CompletableFuture<Boolean> writeTextAsync(String filename, String text) {
+        return supplyAsync(() -> writeText(filename, text));
+    }
+
+    /**
+     * Run a file operation on the I/O thread
+     * 
+     * @param task operation to run
+     * @return future completed when the operation has finished
+     */
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return CompletableFuture.runAsync(task, IO_EXECUTOR);
+    }
+
+    /**
+     * Run a file operation that produces a result on the I/O thread
+     * 
+     * @param <T> type of result
+     * @param task operation to run
+     * @return future completed with the result of the operation
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, IO_EXECUTOR);
+    }
+
+    /**
+     * Add listener to be told about file errors
+     * 
+     * @param listener listener to add
+     */
+    public void addErrorListener(FileErrorListener listener) {
+        ERROR_LISTENERS.add(listener);
+    }
+
+    /**
+     * Remove listener added with addErrorListener
+     * 
+     * @param listener listener to remove
+     */
+    public void removeErrorListener(FileErrorListener listener) {
+        ERROR_LISTENERS.remove(listener);
+    }
+
+    /**
+     * Report a file error to all error listeners. If there are no listeners, the error is printed to standard error.
+     * 
+     * @param message description of the error
+     */
+    public void reportError(String message) {
+        if (ERROR_LISTENERS.isEmpty()) {
+            System.err.println(message);
+            return;
+        }
+        for (FileErrorListener listener : ERROR_LISTENERS) {
+            listener.fileError(message);
+        }
+    }
+
     /**
      * Checks if a file with the given name exists
      * 
@@ -108,4 +193,36 @@ public class FileHandler {
             return new ImageIcon();
         }
     }
+
+    /**
+     * Read a text file, either from disk or from inside the JAR archive
+     * 
+     * @param filename the name of the file
+     * @return the text from the file
+     * @throws IOException if the file can't be read
+     */
+    private String read(String filename) throws IOException {
+        StringBuilder text = new StringBuilder();
+        String nextLine;
+        // check the first character of the filename.
+        // If it starts with "/", the file is inside the JAR archive and needs to be loaded as an input stream using the getResourceAsStream() method.
+        // otherwise a FileReader is used
+        BufferedReader br;
+        if (filename.startsWith("/")) {
+            InputStream in = getClass().getResourceAsStream(filename);
+            if (in == null) {
+                throw new IOException(filename + " not found");
+            }
+            br = new BufferedReader(new InputStreamReader(in));
+        } else {
+            br = new BufferedReader(new FileReader(filename));
+        }
+        try (BufferedReader reader = br) {
+            // go through each line of the file and append to StringBuilder
+            while ((nextLine = reader.readLine()) != null) {
+                text.append(nextLine).append('\n');
+            }
+        }
+        return text.toString();
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the events caused by one move (or one timer tick), in the order they happened.
+ * Events are stored in primitive arrays instead of one object per event, so a move revealing a large area creates only a few objects.
+ * Each event has a type, a tile (x, y) and a value, whose meaning depends on the type:
+ * - TILE_REVEALED: revealed tile, value = its content (number of adjacent mines)
+ * - CASCADE_COMPLETED: empty tile the cascade started from, value = number of tiles revealed by the cascade
+ * - FLAG_TOGGLED: the tile, value = 1 if the flag was set, 0 if it was removed
+ * - GAME_WON: tile of the winning move, value unused
+ * - GAME_LOST: the revealed mine, value unused
+ * - TIMER_TICK: tile unused (-1), value = elapsed time in tenths of a second
+ * A batch must not be changed once it has been published.
+ *
+ * @author Badi Moore
+ */
+public class GameEventBatch {
+
+    public static final int TILE_REVEALED = 0;
+    public static final int CASCADE_COMPLETED = 1;
+    public static final int FLAG_TOGGLED = 2;
+    public static final int GAME_WON = 3;
+    public static final int GAME_LOST = 4;
+    public static final int TIMER_TICK = 5;
+
+    private long sequence; // set by GameEventPublisher when the batch is published
+    private int[] types;
+    private int[] xs;
+    private int[] ys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Create new empty batch. The batch gets its sequence number when it is published.
+     */
+    public GameEventBatch() {
+        sequence = 0;
+        types = new int[8];
+        xs = new int[8];
+        ys = new int[8];
+        values = new int[8];
+        size = 0;
+    }
+
+    /**
+     * Add an event
+     *
+     * @param type event type
+     * @param x X-coordinate of event's tile, -1 if none
+     * @param y Y-coordinate of event's tile, -1 if none
+     * @param value event value
+     */
+    public void add(int type, int x, int y, int value) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        types[size] = type;
+        xs[size] = x;
+        ys[size] = y;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Get sequence number of the batch. Batches of a game are numbered from 1 in the order they were published.
+     *
+     * @return sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Set sequence number of the batch. Only GameEventPublisher sets it, when the batch is published.
+     *
+     * @param sequence sequence number
+     */
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Get number of events
+     *
+     * @return number of events
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get type of an event
+     *
+     * @param i index of event
+     * @return event type
+     */
+    public int getType(int i) {
+        return types[i];
+    }
+
+    /**
+     * Get X-coordinate of an event's tile
+     *
+     * @param i index of event
+     * @return X-coordinate, -1 if event has no tile
+     */
+    public int getX(int i) {
+        return xs[i];
+    }
+
+    /**
+     * Get Y-coordinate of an event's tile
+     *
+     * @param i index of event
+     * @return Y-coordinate, -1 if event has no tile
+     */
+    public int getY(int i) {
+        return ys[i];
+    }
+
+    /**
+     * Get value of an event
+     *
+     * @param i index of event
+     * @return event value
+     */
+    public int getValue(int i) {
+        return values[i];
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * This class publishes the events of a game (see GameEventBatch) to any number of subscribers, e.g. loggers, statistics or replay recorders.
+ * Events are delivered on a separate thread, and each subscriber has a buffer of MineConstants.EVENT_BUFFER_SIZE batches.
+ * Batches are never waited for: if a subscriber's buffer is full, the batch is dropped for that subscriber, so a slow subscriber
+ * only misses batches (visible as gaps in the sequence numbers) and never slows the game down.
+ * Batches are numbered when they are published, so moves made on the game thread and timer ticks are numbered in the order they are delivered.
+ * Subscribers control the flow with Flow.Subscription.request as usual.
+ *
+ * @author Badi Moore
+ */
+public class GameEventPublisher implements Flow.Publisher<GameEventBatch> {
+
+    // threads delivering events, shared by all publishers
+    private static final ExecutorService DELIVERY = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Minesweeper event delivery");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SubmissionPublisher<GameEventBatch> publisher;
+    private long sequence; // sequence number of the last published batch, guarded by this publisher's lock
+
+    /**
+     * Create new publisher without subscribers
+     */
+    public GameEventPublisher() {
+        publisher = new SubmissionPublisher<>(DELIVERY, MineConstants.EVENT_BUFFER_SIZE);
+        sequence = 0;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super GameEventBatch> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Does the publisher have subscribers? Games only collect events when someone is listening.
+     *
+     * @return are there subscribers?
+     */
+    public boolean hasSubscribers() {
+        return publisher.hasSubscribers();
+    }
+
+    /**
+     * Create an empty batch. It gets its sequence number when it is published.
+     *
+     * @return new batch
+     */
+    public GameEventBatch newBatch() {
+        return new GameEventBatch();
+    }
+
+    /**
+     * Publish a batch to all subscribers without waiting. Empty batches are not published and use no sequence number.
+     *
+     * @param batch batch to publish
+     */
+    public synchronized void publish(GameEventBatch batch) {
+        if (batch.size() == 0) {
+            return;
+        }
+        // the batch is numbered and offered under the same lock, so the batches of different threads are delivered in sequence order
+        sequence++;
+        batch.setSequence(sequence);
+        // returning false from the drop handler drops the batch for that subscriber instead of retrying
+        publisher.offer(batch, (subscriber, dropped) -> false);
+    }
+
+    /**
+     * Publish a timer tick
+     *
+     * @param tenths elapsed time in tenths of a second
+     */
+    public void tick(int tenths) {
+        if (hasSubscribers()) {
+            GameEventBatch batch = newBatch();
+            batch.add(GameEventBatch.TIMER_TICK, -1, -1, tenths);
+            publish(batch);
+        }
+    }
+
+    /**
+     * Stop publishing and tell subscribers that no more events will come
+     */
+    public void close() {
+        publisher.close();
+    }
+}
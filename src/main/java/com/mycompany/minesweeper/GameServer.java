@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is an HTTP server hosting many independent games at once, for bots and other clients without the Swing UI.
+ * Games are kept in a SessionRegistry. All responses are JSON:
+ * - POST /games?difficulty=&lt;easy|medium|expert&gt; or ?width=&amp;height=&amp;mines= creates a game and returns its state,
+ *   with optional &amp;minBbbv=&amp;maxBbbv= the board's 3BV is within the given range
+ * - GET /games/&lt;id&gt; returns the state of a game (see GameSession.toJson)
+ * - POST /games/&lt;id&gt;/move?type=&lt;reveal|flag|chord&gt;&amp;x=&amp;y= makes a move and returns the new state
+ * - GET /games/&lt;id&gt;/watch streams the game's moves as BoardDelta frames (application/octet-stream), starting with a keyframe
+ * - DELETE /games/&lt;id&gt; ends a game and disconnects its spectators
+ * - GET /games returns the number of {"live", "parked"} games
+ * Errors are returned as {"error"} with a 4xx status.
+ *
+ * @author Badi Moore
+ */
+public class GameServer {
+
+    private static final String CONTEXT = "/games";
+
+    private final SessionRegistry registry;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Create new game server. The server doesn't accept requests until it is started.
+     *
+     * @param registry registry to keep the games in
+     * @param port port to listen on, 0 for any free port
+     * @throws IOException if the port can't be opened
+     */
+    public GameServer(SessionRegistry registry, int port) throws IOException {
+        this.registry = registry;
+        HttpHelper.enableNoDelay();
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = HttpHelper.newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext(CONTEXT, this::handle);
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Minesweeper session sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start accepting requests and parking idle games
+     */
+    public void start() {
+        server.start();
+        sweeper.scheduleWithFixedDelay(() -> registry.evictIdle(System.currentTimeMillis()),
+                MineConstants.SESSION_SWEEP_INTERVAL, MineConstants.SESSION_SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop accepting requests and stop the server's threads
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        sweeper.shutdown();
+    }
+
+    /**
+     * Get the port the server listens on
+     *
+     * @return port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Handle one request
+     *
+     * @param exchange request and response
+     * @throws IOException if the response can't be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        boolean streaming = false; // spectator streams stay open after the request has been handled
+        try {
+            // path is /games, /games/<id> or /games/<id>/move
+            String path = exchange.getRequestURI().getPath();
+            String[] parts = path.length() > CONTEXT.length() + 1 ? path.substring(CONTEXT.length() + 1).split("/") : new String[0];
+            String method = exchange.getRequestMethod();
+            Map<String, String> query = HttpHelper.parseQuery(exchange.getRequestURI().getRawQuery());
+
+            if (parts.length == 0) {
+                if (method.equals("POST")) {
+                    create(exchange, query);
+                } else if (method.equals("GET")) {
+                    HttpHelper.send(exchange, 200, "{\"live\":" + registry.getLiveCount() + ",\"parked\":" + registry.getParkedCount() + "}");
+                } else {
+                    HttpHelper.sendError(exchange, 405, "Method not allowed");
+                }
+                return;
+            }
+
+            long id;
+            try {
+                id = Long.parseLong(parts[0]);
+            } catch (NumberFormatException e) {
+                HttpHelper.sendError(exchange, 404, "Not found");
+                return;
+            }
+            String state;
+            if (parts.length == 1 && method.equals("GET")) {
+                state = registry.apply(id, GameSession::toJson);
+            } else if (parts.length == 1 && method.equals("DELETE")) {
+                registry.apply(id, session -> {
+                    session.getSpectators().closeAll();
+                    return null;
+                });
+                state = registry.remove(id) ? "{}" : null;
+            } else if (parts.length == 2 && parts[1].equals("watch") && method.equals("GET")) {
+                streaming = watch(exchange, id);
+                return;
+            } else if (parts.length == 2 && parts[1].equals("move") && method.equals("POST")) {
+                String type = query.getOrDefault("type", "reveal");
+                int x = HttpHelper.getInt(query, "x");
+                int y = HttpHelper.getInt(query, "y");
+                state = registry.apply(id, session -> {
+                    session.move(type, x, y);
+                    return session.toJson();
+                });
+            } else {
+                HttpHelper.sendError(exchange, 404, "Not found");
+                return;
+            }
+            if (state == null) {
+                HttpHelper.sendError(exchange, 404, "No game " + id);
+            } else {
+                HttpHelper.send(exchange, 200, state);
+            }
+        } catch (IllegalArgumentException e) {
+            HttpHelper.sendError(exchange, 400, e.getMessage());
+        } finally {
+            if (!streaming) {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * Start streaming a game's moves to a new spectator
+     *
+     * @param exchange request and response
+     * @param id game id
+     * @return was the stream started? If not, an error response has been sent
+     * @throws IOException if the response can't be sent
+     */
+    private boolean watch(HttpExchange exchange, long id) throws IOException {
+        if (registry.apply(id, session -> Boolean.TRUE) == null) {
+            HttpHelper.sendError(exchange, 404, "No game " + id);
+            return false;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, 0); // length 0 = stream until the spectator is closed
+        Spectator spectator = registry.apply(id, session -> session.getSpectators().subscribe(session, exchange.getResponseBody()));
+        // the game may have been deleted in between
+        return spectator != null;
+    }
+
+    /**
+     * Create a new game
+     *
+     * @param exchange request and response
+     * @param query query parameters
+     * @throws IOException if the response can't be sent
+     */
+    private void create(HttpExchange exchange, Map<String, String> query) throws IOException {
+        BoardConfig config;
+        if (query.containsKey("difficulty")) {
+            config = BoardConfig.forDifficulty(query.get("difficulty"));
+            if (config == null) {
+                throw new IllegalArgumentException("Unknown difficulty " + query.get("difficulty"));
+            }
+        } else {
+            config = new BoardConfig(HttpHelper.getInt(query, "width"), HttpHelper.getInt(query, "height"), HttpHelper.getInt(query, "mines"));
+        }
+        int tiles = config.getWidth() * config.getHeight();
+        if (config.getWidth() <= 0 || config.getHeight() <= 0 || tiles > MineConstants.SERVER_MAX_TILES) {
+            throw new IllegalArgumentException("Board must have 1 to " + MineConstants.SERVER_MAX_TILES + " tiles");
+        }
+        // one tile must stay free, so a mine on the first revealed tile can be moved
+        if (config.getMines() < 0 || config.getMines() >= tiles) {
+            throw new IllegalArgumentException("Board must have 0 to " + (tiles - 1) + " mines");
+        }
+        GameSession session;
+        if (query.containsKey("minBbbv") || query.containsKey("maxBbbv")) {
+            int minBbbv = HttpHelper.getInt(query, "minBbbv", 0);
+            int maxBbbv = HttpHelper.getInt(query, "maxBbbv", tiles);
+            MineCoordinate[][] grid = MineFieldFactory.createMineField(config.getWidth(), config.getHeight(), config.getMines(), minBbbv, maxBbbv);
+            if (grid == null) {
+                throw new IllegalArgumentException("No board with 3BV " + minBbbv + " to " + maxBbbv + " found");
+            }
+            session = registry.create(grid, config.getMines());
+        } else {
+            session = registry.create(config.getWidth(), config.getHeight(), config.getMines());
+        }
+        String state;
+        synchronized (session) {
+            state = session.toJson();
+        }
+        HttpHelper.send(exchange, 200, state);
+    }
+
+    /**
+     * Run a game server until the process is stopped
+     *
+     * @param args optional port number, MineConstants.GAMESERVER_PORT by default
+     * @throws IOException if the port can't be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : MineConstants.GAMESERVER_PORT;
+        GameServer server = new GameServer(new SessionRegistry(), port);
+        server.start();
+        System.out.println("Game server listening on port " + server.getPort());
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * This class is one game hosted by the GameServer. It runs the game with the same MineLogic as the desktop game, without any UI.
+ *
+ * A session can be parked: it is then stored in a compact serialized form (about half a byte per tile) instead of as MineCoordinate objects.
+ * Callers must synchronize on the session while using it and check isParked(), since the SessionRegistry may park it at any time it isn't locked.
+ * Sessions with spectators are never parked.
+ *
+ * @author Badi Moore
+ */
+public class GameSession {
+
+    // bits of a tile in the serialized form, two tiles are packed into each byte
+    private static final int BIT_MINE = 1;
+    private static final int BIT_REVEALED = 2;
+    private static final int BIT_FLAGGED = 4;
+
+    private final long id;
+    private final int width;
+    private final int height;
+    private final int mineCount;
+    private final MineCoordinate[][] grid;
+    private final MineLogic logic;
+    private volatile long lastAccess; // time of last use in ms, used to find idle sessions
+    private boolean parked; // has the session been serialized and dropped from the registry?
+    private SpectatorHub spectators; // created when the first spectator subscribes
+
+    /**
+     * Create session from an existing grid
+     *
+     * @param id session id
+     * @param grid game board
+     * @param mineCount total number of mines
+     * @param logic game logic running on the grid
+     */
+    private GameSession(long id, MineCoordinate[][] grid, int mineCount, MineLogic logic) {
+        this.id = id;
+        this.grid = grid;
+        this.width = grid.length;
+        this.height = grid[0].length;
+        this.mineCount = mineCount;
+        this.logic = logic;
+        lastAccess = System.currentTimeMillis();
+        parked = false;
+    }
+
+    /**
+     * Create session with a new game
+     *
+     * @param id session id
+     * @param width number of tiles in x-dimension
+     * @param height number of tiles in y-dimension
+     * @param mineCount number of mines
+     * @return the new session
+     */
+    public static GameSession create(long id, int width, int height, int mineCount) {
+        return create(id, MineFieldFactory.createMineField(width, height, mineCount), mineCount);
+    }
+
+    /**
+     * Create session with a new game on a generated board
+     *
+     * @param id session id
+     * @param grid board created by MineFieldFactory
+     * @param mineCount number of mines
+     * @return the new session
+     */
+    public static GameSession create(long id, MineCoordinate[][] grid, int mineCount) {
+        return new GameSession(id, grid, mineCount, new MineLogic(grid, mineCount));
+    }
+
+    /**
+     * Get session id
+     *
+     * @return id of session
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Get time the session was last used
+     *
+     * @return time in ms
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Mark the session as used now
+     */
+    public void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Get board width
+     *
+     * @return number of tiles in x-dimension
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get board height
+     *
+     * @return number of tiles in y-dimension
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the game logic, e.g. to read the win state or the tiles changed by the last move
+     *
+     * @return game logic
+     */
+    public MineLogic getLogic() {
+        return logic;
+    }
+
+    /**
+     * Get what a player sees on a tile
+     *
+     * @param x X-coordinate of tile from left
+     * @param y Y-coordinate of tile from top
+     * @return 0-8 for a revealed tile, MineConstants.TILE_HIDDEN, MineConstants.TILE_FLAGGED, or MineConstants.TILE_MINE for a mine once the game is lost
+     */
+    public int getTile(int x, int y) {
+        MineCoordinate coord = grid[x][y];
+        if (coord.isRevealed()) {
+            return coord.getContent();
+        } else if (logic.getWinState() == MineLogic.LOST && coord.isMine()) {
+            return MineConstants.TILE_MINE;
+        } else if (coord.isFlagged()) {
+            return MineConstants.TILE_FLAGGED;
+        }
+        return MineConstants.TILE_HIDDEN;
+    }
+
+    /**
+     * Has the session been parked? A parked session must not be used, get it again from the registry instead.
+     *
+     * @return is session parked?
+     */
+    public boolean isParked() {
+        return parked;
+    }
+
+    /**
+     * Make a move
+     *
+     * @param type "reveal" (left click), "flag" (right click) or "chord" (double-click)
+     * @param x X-coordinate of tile from left
+     * @param y Y-coordinate of tile from top
+     * @throws IllegalArgumentException if the move type or coordinates are invalid
+     */
+    public void move(String type, int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IllegalArgumentException("Tile (" + x + "," + y + ") is outside the board");
+        }
+        // moves after the game has ended are ignored, as in the desktop game
+        if (logic.getWinState() != MineLogic.UNFINISHED) {
+            return;
+        }
+        switch (type) {
+            case "reveal":
+                logic.leftMouse(x, y);
+                break;
+            case "flag":
+                logic.rightMouse(x, y);
+                break;
+            case "chord":
+                logic.doubleClick(x, y);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown move type " + type);
+        }
+        if (spectators != null) {
+            spectators.publish(this);
+        }
+    }
+
+    /**
+     * Apply a batch of moves as one move (see MineLogic.applyMoves). Spectators get one frame for the whole batch.
+     *
+     * @param moves moves to apply
+     * @throws IllegalArgumentException if a move type or coordinates are invalid; no move is applied then
+     */
+    public void applyMoves(MoveBatch moves) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.getX(i) < 0 || moves.getX(i) >= width || moves.getY(i) < 0 || moves.getY(i) >= height) {
+                throw new IllegalArgumentException("Tile (" + moves.getX(i) + "," + moves.getY(i) + ") is outside the board");
+            }
+        }
+        // moves after the game has ended are ignored, as in the desktop game
+        if (logic.getWinState() != MineLogic.UNFINISHED) {
+            return;
+        }
+        logic.applyMoves(moves);
+        if (spectators != null) {
+            spectators.publish(this);
+        }
+    }
+
+    /**
+     * Get the hub sending this game's moves to its spectators
+     *
+     * @return spectator hub
+     */
+    public SpectatorHub getSpectators() {
+        if (spectators == null) {
+            spectators = new SpectatorHub();
+        }
+        return spectators;
+    }
+
+    /**
+     * Is anyone watching the game?
+     *
+     * @return does the game have spectators?
+     */
+    public boolean hasSpectators() {
+        return spectators != null && spectators.hasSpectators();
+    }
+
+    /**
+     * Get the state of the game as JSON: {"id", "state", "mines", "bbbv", "board"}. The board's 3BV (bbbv) is only included once the game has ended.
+     * The board has one string per row: '#' = unrevealed, 'F' = flagged, '0'-'8' = revealed tile with its adjacent mines.
+     * Mines are shown as '*' once the game is lost.
+     *
+     * @return game state
+     */
+    public String toJson() {
+        int winState = logic.getWinState();
+        StringBuilder sb = new StringBuilder(64 + height * (width + 3));
+        sb.append("{\"id\":").append(id)
+                .append(",\"state\":\"").append(winState == MineLogic.WON ? "won" : winState == MineLogic.LOST ? "lost" : "unfinished")
+                .append("\",\"mines\":").append(logic.getMines());
+        if (winState != MineLogic.UNFINISHED) {
+            sb.append(",\"bbbv\":").append(logic.getBoardStats().getBbbv());
+        }
+        sb.append(",\"board\":[");
+        for (int y = 0; y < height; y++) {
+            if (y > 0) {
+                sb.append(',');
+            }
+            sb.append('"');
+            for (int x = 0; x < width; x++) {
+                int tile = getTile(x, y);
+                if (tile == MineConstants.TILE_HIDDEN) {
+                    sb.append('#');
+                } else if (tile == MineConstants.TILE_FLAGGED) {
+                    sb.append('F');
+                } else if (tile == MineConstants.TILE_MINE) {
+                    sb.append('*');
+                } else {
+                    sb.append((char) ('0' + tile));
+                }
+            }
+            sb.append('"');
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * Serialize the session and mark it as parked
+     *
+     * @return serialized session
+     */
+    public byte[] park() {
+        parked = true;
+        return serialize();
+    }
+
+    /**
+     * Serialize the session: id, size, mine count and win state, then tiles in column order, two tiles per byte
+     *
+     * @return serialized session
+     */
+    public byte[] serialize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(21 + (width * height + 1) / 2);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(id);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(mineCount);
+            out.writeByte(logic.getWinState());
+            int packed = 0;
+            int tile = 0;
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    MineCoordinate coord = grid[x][y];
+                    int bits = (coord.isMine() ? BIT_MINE : 0) | (coord.isRevealed() ? BIT_REVEALED : 0) | (coord.isFlagged() ? BIT_FLAGGED : 0);
+                    packed |= bits << ((tile & 1) * 4);
+                    if ((tile & 1) == 1) {
+                        out.writeByte(packed);
+                        packed = 0;
+                    }
+                    tile++;
+                }
+            }
+            if ((tile & 1) == 1) {
+                out.writeByte(packed);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // can't happen when writing to memory
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Restore a session from its serialized form
+     *
+     * @param data serialized session
+     * @return restored session
+     * @throws IOException if the data isn't a valid serialized session
+     */
+    public static GameSession deserialize(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            long id = in.readLong();
+            int width = in.readInt();
+            int height = in.readInt();
+            int mineCount = in.readInt();
+            int winState = in.readByte();
+            if (width <= 0 || height <= 0) {
+                throw new IOException("Invalid session size " + width + "x" + height);
+            }
+            MineCoordinate[][] grid = new MineCoordinate[width][height];
+            int[] states = new int[width * height];
+            int packed = 0;
+            for (int tile = 0; tile < states.length; tile++) {
+                if ((tile & 1) == 0) {
+                    packed = in.readUnsignedByte();
+                }
+                states[tile] = (packed >> ((tile & 1) * 4)) & 0xF;
+                MineCoordinate coord = new MineCoordinate(tile / height, tile % height);
+                if ((states[tile] & BIT_MINE) != 0) {
+                    coord.setContent(MineConstants.MINE);
+                }
+                grid[tile / height][tile % height] = coord;
+            }
+            MineFieldFactory.setAdjacentMines(grid);
+            for (int tile = 0; tile < states.length; tile++) {
+                MineCoordinate coord = grid[tile / height][tile % height];
+                coord.setRevealed((states[tile] & BIT_REVEALED) != 0);
+                coord.setFlagged((states[tile] & BIT_FLAGGED) != 0);
+            }
+            return new GameSession(id, grid, mineCount, new MineLogic(grid, mineCount, winState));
+        }
+    }
+}
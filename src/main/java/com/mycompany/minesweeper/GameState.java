@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+/**
+ * This class is an immutable copy of a game's state after a move. It is made on the game thread and handed to the
+ * event dispatch thread, so the window can show the state without reading the MineLogic while the next move changes it.
+ * The tiles are only copied when the whole board is repainted, e.g. when the game ends.
+ *
+ * @author Badi Moore
+ */
+public class GameState {
+
+    private final int winState; // MineLogic.UNFINISHED, WON or LOST
+    private final int mines; // number of unflagged mines
+    private final BoardStats boardStats; // stats of a won board, otherwise null
+    private final int[] tiles; // states of all tiles by x * height + y as copied by MineButton.readState, or null
+    private final int height;
+
+    /**
+     * Create new GameState
+     *
+     * @param winState MineLogic.UNFINISHED, WON or LOST
+     * @param mines number of unflagged mines
+     * @param boardStats stats of a won board, or null
+     * @param tiles states of all tiles by x * height + y as copied by MineButton.readState, or null if tiles weren't copied
+     * @param height board height
+     */
+    public GameState(int winState, int mines, BoardStats boardStats, int[] tiles, int height) {
+        this.winState = winState;
+        this.mines = mines;
+        this.boardStats = boardStats;
+        this.tiles = tiles;
+        this.height = height;
+    }
+
+    /**
+     * Get win state of the game
+     *
+     * @return MineLogic.UNFINISHED, WON or LOST
+     */
+    public int getWinState() {
+        return winState;
+    }
+
+    /**
+     * Get number of unflagged mines
+     *
+     * @return number of unflagged mines
+     */
+    public int getMines() {
+        return mines;
+    }
+
+    /**
+     * Get the stats of a won board
+     *
+     * @return board stats, or null if the game wasn't won
+     */
+    public BoardStats getBoardStats() {
+        return boardStats;
+    }
+
+    /**
+     * Were the states of all tiles copied?
+     *
+     * @return were tiles copied?
+     */
+    public boolean hasTiles() {
+        return tiles != null;
+    }
+
+    /**
+     * Get the copied state of a tile
+     *
+     * @param x tile X-coordinate from left
+     * @param y tile Y-coordinate from top
+     * @return state of tile, to be shown with MineButton.setState
+     */
+    public int getTile(int x, int y) {
+        return tiles[x * height + y];
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+/**
+ * This class shades the unrevealed tiles of the game board by their probability of being a mine.
+ * The probabilities are computed by a MineSolver on a background thread after each move. A new move cancels the computation
+ * for the previous one, and only the result for the latest move is painted, so the overlay never delays the game.
+ * All methods must be called on the event dispatch thread. If the game is played on another thread, copy the board there
+ * with MineSolver.forGame and pass the solver to update.
+ *
+ * @author Badi Moore
+ */
+public class HeatmapOverlay {
+
+    // thread computing the probabilities, shared by all overlays
+    private static final ExecutorService SOLVER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Minesweeper solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Container gameboard; // container of the MineButtons
+    private Future<?> pending; // computation in progress, or null
+    private long generation; // number of the latest update, older results are not painted
+
+    /**
+     * Create new HeatmapOverlay
+     *
+     * @param gameboard container of the game's MineButtons
+     */
+    public HeatmapOverlay(Container gameboard) {
+        this.gameboard = gameboard;
+        generation = 0;
+    }
+
+    /**
+     * Start computing the probabilities for the current state of a game, cancelling any earlier computation
+     *
+     * @param logic the game
+     */
+    public void update(MineLogic logic) {
+        update(MineSolver.forGame(logic)); // the board is copied here, on the event dispatch thread
+    }
+
+    /**
+     * Start computing the probabilities for a copy of a game's board, cancelling any earlier computation
+     *
+     * @param solver solver with the copied board, see MineSolver.forGame
+     */
+    public void update(MineSolver solver) {
+        cancel();
+        long current = generation;
+        pending = SOLVER.submit(() -> {
+            try {
+                SolverResult result = solver.solve(TimeUnit.MILLISECONDS.toNanos(MineConstants.HEATMAP_TIME_BUDGET));
+                SwingUtilities.invokeLater(() -> paint(result, current));
+            } catch (CancellationException e) {
+                // a newer move has replaced this computation
+            }
+        });
+    }
+
+    /**
+     * Cancel any computation and remove the shading
+     */
+    public void clear() {
+        cancel();
+        for (Component comp : gameboard.getComponents()) {
+            // before the first game the board shows a picture instead of buttons
+            if (comp instanceof MineButton) {
+                ((MineButton) comp).setProbability(-1);
+            }
+        }
+    }
+
+    /**
+     * Cancel the computation in progress and make sure its result won't be painted
+     */
+    private void cancel() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(true); // interrupts the solver
+            pending = null;
+        }
+    }
+
+    /**
+     * Shade the tiles, unless a newer update has been started since the result was computed
+     *
+     * @param result probabilities
+     * @param resultGeneration number of the update the result was computed for
+     */
+    private void paint(SolverResult result, long resultGeneration) {
+        if (resultGeneration != generation) {
+            return;
+        }
+        for (Component comp : gameboard.getComponents()) {
+            if (comp instanceof MineButton) {
+                MineButton mb = (MineButton) comp;
+                mb.setProbability(result.getProbability(mb.getXIndex(), mb.getYIndex()));
+            }
+        }
+    }
+}
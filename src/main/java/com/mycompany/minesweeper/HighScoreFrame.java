@@ -17,15 +17,19 @@
 package com.mycompany.minesweeper;
 
 import java.awt.Toolkit;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.util.ArrayList;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JTable;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableColumn;
 
 /**
  * This class creates a frame to display high scores. Scores from different difficulties can be viewed and the score file can be reset.
+ * Clicking the header of the time or 3BV/s column ranks the scores by that column.
  *
  * @author Badi Moore
  */
@@ -42,69 +46,90 @@ public class HighScoreFrame extends javax.swing.JFrame {
         this.scoreHandler = scoreHandler;
         getContentPane().setBackground(new java.awt.Color(250, 250, 250));
 
-        // center the text in the score column for all score tables
+        // the tables read their rows from the score handler on demand and refresh themselves when scores change
+        easyModel = createModel(jTableEasy, "easy");
+        mediumModel = createModel(jTableMedium, "medium");
+        expertModel = createModel(jTableExpert, "expert");
+        updatePageButtons();
+
+        // stop listening to score changes when the window is closed
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                easyModel.dispose();
+                mediumModel.dispose();
+                expertModel.dispose();
+            }
+        });
+        jTabbedPaneScores.addChangeListener(e -> updatePageButtons());
+    }
+
+    /**
+     * Create a ScoreTableModel for a difficulty and set it as the table's model
+     *
+     * @param table the JTable to show the scores in
+     * @param difficulty difficulty of the scores
+     * @return the created model
+     */
+    private ScoreTableModel createModel(JTable table, String difficulty) {
+        ScoreTableModel model = new ScoreTableModel(scoreHandler, difficulty, MineConstants.SCORES_PER_PAGE);
+        model.addTableModelListener(e -> updatePageButtons());
+        
+        // keep the columns set up in initComponents() instead of creating new ones from the model
+        table.setAutoCreateColumnsFromModel(false);
+        table.setModel(model);
+
         DefaultTableCellRenderer centerRend = new DefaultTableCellRenderer();
         centerRend.setHorizontalAlignment(JLabel.CENTER);
-        jTableEasy.getColumnModel().getColumn(1).setCellRenderer(centerRend);
-        jTableMedium.getColumnModel().getColumn(1).setCellRenderer(centerRend);
-        jTableExpert.getColumnModel().getColumn(1).setCellRenderer(centerRend);
-        
-        readScores();
+        table.getColumnModel().getColumn(1).setCellRenderer(centerRend);
+
+        // the 3BV/s column isn't part of the columns created in initComponents()
+        TableColumn efficiency = new TableColumn(2, 80, centerRend, null);
+        efficiency.setHeaderValue(model.getColumnName(2));
+        table.addColumn(efficiency);
+
+        // rank the scores by the clicked column: time or efficiency
+        table.getTableHeader().setToolTipText("Click Score (s) or 3BV/s to rank by it");
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                if (column == 1) {
+                    model.setOrder(ScoreTable.BY_TIME);
+                } else if (column == 2) {
+                    model.setOrder(ScoreTable.BY_EFFICIENCY);
+                }
+            }
+        });
+        return model;
     }
 
     /**
-     * Reads the scores from <code>scoreHandler</code> and inserts the values into the score tables
+     * Get the model of the table in the selected tab
+     *
+     * @return model of the shown table
      */
-    private void readScores() {
-        // Empty out the old values by setting the row count to 0, than back to the max amount of scores
-        DefaultTableModel dm = (DefaultTableModel) jTableEasy.getModel();
-        dm.setRowCount(0);
-        dm.setRowCount(MineConstants.MAXSCORES);
-        dm = (DefaultTableModel) jTableMedium.getModel();
-        dm.setRowCount(0);
-        dm.setRowCount(MineConstants.MAXSCORES);
-        dm = (DefaultTableModel) jTableExpert.getModel();
-        dm.setRowCount(0);
-        dm.setRowCount(MineConstants.MAXSCORES);
-
-        // fetch scores for each difficulty level into and ArrayList
-        // then iterate through list and add each name and score to correct table cell
-        ArrayList<Score> scores = scoreHandler.getScores("easy").getScoreList();
-        for (int i = 0; i < scores.size(); i++) {
-            jTableEasy.getModel().setValueAt((getPosString(i + 1)) + scores.get(i).getName(), i, 0);
-            jTableEasy.getModel().setValueAt(scores.get(i).getScore(), i, 1);
-        }
-        scores = scoreHandler.getScores("medium").getScoreList();
-        for (int i = 0; i < scores.size(); i++) {
-            jTableMedium.getModel().setValueAt((getPosString(i + 1)) + scores.get(i).getName(), i, 0);
-            jTableMedium.getModel().setValueAt(scores.get(i).getScore(), i, 1);
-        }
-        scores = scoreHandler.getScores("expert").getScoreList();
-        for (int i = 0; i < scores.size(); i++) {
-            jTableExpert.getModel().setValueAt((getPosString(i + 1)) + scores.get(i).getName(), i, 0);
-            jTableExpert.getModel().setValueAt(scores.get(i).getScore(), i, 1);
+    private ScoreTableModel getSelectedModel() {
+        switch (jTabbedPaneScores.getSelectedIndex()) {
+            case 1:
+                return mediumModel;
+            case 2:
+                return expertModel;
+            default:
+                return easyModel;
         }
-
-        jTableEasy.validate();
     }
 
     /**
-     * Generate prefix string for the name value in the score table.
-     * The string should contain the score's placement and enough whitespace
-     * to align the names with single digit placements with the names with double digit placements.
-     * Thus the name "Badi" at first placement would show up as "1.  Badi" combined with the return value.
-     * 
-     * @param i the score's placement number
-     * @return the prefix string for given placement
+     * Enable the page buttons only if the shown table has a previous/next page
      */
-    private String getPosString(int i) {
-        String pos = String.valueOf(i);
-        if (i < 10) {
-            pos += ".   ";
-        } else {
-            pos += ". ";
+    private void updatePageButtons() {
+        ScoreTableModel model = getSelectedModel();
+        if (model == null) {
+            return;
         }
-        return pos;
+        jButtonPrevious.setEnabled(model.hasPreviousPage());
+        jButtonNext.setEnabled(model.hasNextPage());
     }
 
     /**
@@ -128,6 +153,8 @@ public class HighScoreFrame extends javax.swing.JFrame {
         jTableExpert = new javax.swing.JTable();
         jButtonBack = new javax.swing.JButton();
         jButtonReset = new javax.swing.JButton();
+        jButtonPrevious = new javax.swing.JButton();
+        jButtonNext = new javax.swing.JButton();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.DISPOSE_ON_CLOSE);
         setTitle("High Scores");
@@ -343,6 +370,20 @@ public class HighScoreFrame extends javax.swing.JFrame {
             }
         });
 
+        jButtonPrevious.setText("<");
+        jButtonPrevious.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jButtonPreviousActionPerformed(evt);
+            }
+        });
+
+        jButtonNext.setText(">");
+        jButtonNext.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jButtonNextActionPerformed(evt);
+            }
+        });
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
         getContentPane().setLayout(layout);
         layout.setHorizontalGroup(
@@ -352,6 +393,10 @@ public class HighScoreFrame extends javax.swing.JFrame {
                 .addGap(65, 65, 65)
                 .addComponent(jButtonBack)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                .addComponent(jButtonPrevious)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jButtonNext)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                 .addComponent(jButtonReset)
                 .addContainerGap())
         );
@@ -362,6 +407,8 @@ public class HighScoreFrame extends javax.swing.JFrame {
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(jButtonBack)
+                    .addComponent(jButtonPrevious)
+                    .addComponent(jButtonNext)
                     .addComponent(jButtonReset))
                 .addGap(0, 9, Short.MAX_VALUE))
         );
@@ -380,11 +427,20 @@ public class HighScoreFrame extends javax.swing.JFrame {
         //if "yes" chosen, reset all scores and read the (now empty) scores into the tables.
         if (JOptionPane.showConfirmDialog(null, "Are you sure you want to reset the score file?", "Reset scores",
                 JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE) == JOptionPane.YES_OPTION) {
-            scoreHandler.resetScores();
-            readScores();
+            scoreHandler.resetScoresAsync(); // the tables are refreshed by their models when the scores change
         }
     }//GEN-LAST:event_jButtonResetActionPerformed
 
+    private void jButtonPreviousActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButtonPreviousActionPerformed
+        // show previous page of scores in selected tab
+        getSelectedModel().previousPage();
+    }//GEN-LAST:event_jButtonPreviousActionPerformed
+
+    private void jButtonNextActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButtonNextActionPerformed
+        // show next page of scores in selected tab
+        getSelectedModel().nextPage();
+    }//GEN-LAST:event_jButtonNextActionPerformed
+
     /**
      * @param args the command line arguments
      */
@@ -423,6 +479,8 @@ public class HighScoreFrame extends javax.swing.JFrame {
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JButton jButtonBack;
+    private javax.swing.JButton jButtonNext;
+    private javax.swing.JButton jButtonPrevious;
     private javax.swing.JButton jButtonReset;
     private javax.swing.JPanel jPanelEasy;
     private javax.swing.JPanel jPanelExpert;
@@ -437,5 +495,8 @@ public class HighScoreFrame extends javax.swing.JFrame {
     // End of variables declaration//GEN-END:variables
 
     private ScoreHandler scoreHandler;
+    private ScoreTableModel easyModel;
+    private ScoreTableModel mediumModel;
+    private ScoreTableModel expertModel;
 
 }
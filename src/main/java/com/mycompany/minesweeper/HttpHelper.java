@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class has helper methods shared by the HTTP servers (LeaderboardServer and GameServer):
+ * creating the request threads, reading requests, parsing query parameters and sending JSON responses.
+ * Invalid parameters are reported by throwing IllegalArgumentException, which the servers turn into a 400 response.
+ *
+ * @author Badi Moore
+ */
+public class HttpHelper {
+
+    /**
+     * Enable TCP_NODELAY for the JDK HTTP server. Responses are then sent right away instead of waiting to fill a TCP packet;
+     * otherwise every request on a kept-alive connection waits for the client's delayed ACK (about 40 ms).
+     * The JDK server reads this property when its first instance is created, so call this before creating a server.
+     */
+    public static void enableNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * Create the executor serving a server's requests.
+     * The game targets Java 11, which has no virtual threads, so requests are served by a fixed pool of platform threads.
+     * Requests of both servers are short and only wait for locks held for microseconds, never for I/O,
+     * so MineConstants.HTTP_THREADS_PER_CORE threads per core keep the cores busy.
+     *
+     * @return new executor, shut it down when the server is stopped
+     */
+    public static ExecutorService newRequestExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * MineConstants.HTTP_THREADS_PER_CORE);
+    }
+
+    /**
+     * Read the request body
+     *
+     * @param exchange request and response
+     * @param maxBytes largest body accepted
+     * @return request body
+     * @throws IOException if the body can't be read
+     * @throws IllegalArgumentException if the body is longer than maxBytes
+     */
+    public static String readBody(HttpExchange exchange, int maxBytes) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            // one byte more than allowed is read, so a body that is too long is noticed without reading all of it
+            byte[] body = in.readNBytes(maxBytes + 1);
+            if (body.length > maxBytes) {
+                throw new IllegalArgumentException("Request body longer than " + maxBytes + " bytes");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Send a JSON response
+     *
+     * @param exchange request and response
+     * @param status HTTP status code
+     * @param json response body
+     * @throws IOException if the response can't be sent
+     */
+    public static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Send an error response
+     *
+     * @param exchange request and response
+     * @param status HTTP status code
+     * @param message error message
+     * @throws IOException if the response can't be sent
+     */
+    public static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\":" + Json.quote(message) + "}");
+    }
+
+    /**
+     * Parse the parameters of a query string
+     *
+     * @param rawQuery query string, may be null
+     * @return parameter values by name
+     */
+    public static Map<String, String> parseQuery(String rawQuery) {
+        HashMap<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int split = parameter.indexOf('=');
+            if (split > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, split), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(split + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Get an integer query parameter
+     *
+     * @param query query parameters
+     * @param name name of parameter
+     * @param defaultValue value used if the parameter is missing
+     * @return parameter value
+     */
+    public static int getInt(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    /**
+     * Get a required integer query parameter
+     *
+     * @param query query parameters
+     * @param name name of parameter
+     * @return parameter value
+     */
+    public static int getInt(Map<String, String> query, String name) {
+        if (!query.containsKey(name)) {
+            throw new IllegalArgumentException(name + " missing");
+        }
+        return getInt(query, name, 0);
+    }
+
+    /**
+     * Get a number query parameter
+     *
+     * @param query query parameters
+     * @param name name of parameter
+     * @return parameter value
+     */
+    public static double getDouble(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException(name + " missing");
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * This class has the small subset of JSON used by the leaderboard server and client.
+ * Values are parsed into LinkedHashMap (objects), ArrayList (arrays), String, Double, Boolean or null.
+ * Arrays and objects are parsed recursively, so nesting deeper than MAX_DEPTH is rejected instead of overflowing the stack.
+ *
+ * @author Badi Moore
+ */
+public class Json {
+
+    private static final int MAX_DEPTH = 64; // deepest nesting of arrays and objects that is parsed
+
+    private final String text;
+    private int pos; // position of next character to parse
+    private int depth; // arrays and objects around the current position
+
+    /**
+     * Create new parser for given text
+     *
+     * @param text JSON text
+     */
+    private Json(String text) {
+        this.text = text;
+        pos = 0;
+    }
+
+    /**
+     * Parse a JSON value
+     *
+     * @param text JSON text
+     * @return parsed value
+     * @throws IllegalArgumentException if the text isn't valid JSON
+     */
+    public static Object parse(String text) {
+        Json parser = new Json(text);
+        Object value = parser.parseValue();
+        parser.skipWhitespace();
+        if (parser.pos != text.length()) {
+            throw parser.error("unexpected text after value");
+        }
+        return value;
+    }
+
+    /**
+     * Parse a JSON object
+     *
+     * @param text JSON text
+     * @return parsed object
+     * @throws IllegalArgumentException if the text isn't a valid JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public static LinkedHashMap<String, Object> parseObject(String text) {
+        Object value = parse(text);
+        if (!(value instanceof LinkedHashMap)) {
+            throw new IllegalArgumentException("JSON object expected");
+        }
+        return (LinkedHashMap<String, Object>) value;
+    }
+
+    /**
+     * Quote a String as a JSON string, escaping special characters
+     *
+     * @param value String to quote
+     * @return quoted String
+     */
+    public static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Parse the value starting at the current position
+     *
+     * @return parsed value
+     */
+    private Object parseValue() {
+        skipWhitespace();
+        if (pos >= text.length()) {
+            throw error("value expected");
+        }
+        char c = text.charAt(pos);
+        switch (c) {
+            case '{':
+                return parseObjectValue();
+            case '[':
+                return parseArray();
+            case '"':
+                return parseString();
+            case 't':
+                expectWord("true");
+                return Boolean.TRUE;
+            case 'f':
+                expectWord("false");
+                return Boolean.FALSE;
+            case 'n':
+                expectWord("null");
+                return null;
+            default:
+                return parseNumber();
+        }
+    }
+
+    /**
+     * Parse the object starting at the current position
+     *
+     * @return parsed object
+     */
+    private LinkedHashMap<String, Object> parseObjectValue() {
+        LinkedHashMap<String, Object> object = new LinkedHashMap<>();
+        enter();
+        pos++; // skip '{'
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            depth--;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("member name expected");
+            }
+            String key = parseString();
+            skipWhitespace();
+            expect(':');
+            object.put(key, parseValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect('}');
+                depth--;
+                return object;
+            }
+        }
+    }
+
+    /**
+     * Parse the array starting at the current position
+     *
+     * @return parsed array
+     */
+    private ArrayList<Object> parseArray() {
+        ArrayList<Object> array = new ArrayList<>();
+        enter();
+        pos++; // skip '['
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            depth--;
+            return array;
+        }
+        while (true) {
+            array.add(parseValue());
+            skipWhitespace();
+            if (peek() == ',') {
+                pos++;
+            } else {
+                expect(']');
+                depth--;
+                return array;
+            }
+        }
+    }
+
+    /**
+     * Enter an array or object, checking that it isn't nested too deeply
+     */
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw error("nested deeper than " + MAX_DEPTH + " levels");
+        }
+    }
+
+    /**
+     * Parse the string starting at the current position
+     *
+     * @return parsed string, without quotes and escapes
+     */
+    private String parseString() {
+        pos++; // skip opening quote
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            if (pos >= text.length()) {
+                throw error("unterminated string");
+            }
+            char c = text.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= text.length()) {
+                throw error("unterminated string");
+            }
+            char escaped = text.charAt(pos++);
+            switch (escaped) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    if (pos + 4 > text.length()) {
+                        throw error("invalid unicode escape");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("invalid unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    sb.append(escaped); // '"', '\\' and '/'
+            }
+        }
+    }
+
+    /**
+     * Parse the number starting at the current position
+     *
+     * @return parsed number
+     */
+    private Double parseNumber() {
+        int start = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+        try {
+            return Double.valueOf(text.substring(start, pos));
+        } catch (NumberFormatException e) {
+            throw error("invalid value");
+        }
+    }
+
+    /**
+     * Skip the given word, e.g. "true"
+     *
+     * @param word word expected at the current position
+     */
+    private void expectWord(String word) {
+        if (!text.startsWith(word, pos)) {
+            throw error("invalid value");
+        }
+        pos += word.length();
+    }
+
+    /**
+     * Skip the given character
+     *
+     * @param c character expected at the current position
+     */
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("'" + c + "' expected");
+        }
+        pos++;
+    }
+
+    /**
+     * Get the character at the current position
+     *
+     * @return current character, or 0 at the end of the text
+     */
+    private char peek() {
+        return pos < text.length() ? text.charAt(pos) : 0;
+    }
+
+    /**
+     * Move the current position past whitespace
+     */
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    /**
+     * Create exception for a parse error at the current position
+     *
+     * @param message description of error
+     * @return the exception
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid JSON at position " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class talks to a LeaderboardServer. ScoreHandler uses it to read and submit scores when the game is pointed at a shared leaderboard.
+ * All methods block until the server answers, so they should be called on the I/O thread.
+ *
+ * @author Badi Moore
+ */
+public class LeaderboardClient {
+
+    private final String baseUrl;
+    private final HttpClient client;
+
+    /**
+     * Create new client
+     *
+     * @param baseUrl address of the server, e.g. "http://localhost:8470"
+     */
+    public LeaderboardClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        // the server only speaks HTTP/1.1, asking for an upgrade to HTTP/2 on every request would only slow the requests down
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    /**
+     * Get the address of the server
+     *
+     * @return server address
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Submit a score
+     *
+     * @param config board configuration key
+     * @param name score holder's name, cut to MineConstants.LEADERBOARD_MAX_NAME characters
+     * @param score score
+     * @param bbbv 3BV of the board, 0 if unknown
+     * @return rank of the score, 0 being the best
+     * @throws IOException if the server can't be reached or returns an error
+     */
+    public int submit(String config, String name, double score, int bbbv) throws IOException {
+        // the server refuses longer names, which would leave the score pending forever
+        if (name.length() > MineConstants.LEADERBOARD_MAX_NAME) {
+            name = name.substring(0, MineConstants.LEADERBOARD_MAX_NAME);
+        }
+        String body = "{\"name\":" + Json.quote(name) + ",\"score\":" + score + ",\"bbbv\":" + bbbv + "}";
+        HttpRequest request = HttpRequest.newBuilder(uri(config, ""))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+        return getNumber(send(request), "rank").intValue();
+    }
+
+    /**
+     * Get the version of a configuration's table, which increases with every submitted score
+     *
+     * @param config board configuration key
+     * @return version of table
+     * @throws IOException if the server can't be reached or returns an error
+     */
+    public long getVersion(String config) throws IOException {
+        return getNumber(send(HttpRequest.newBuilder(uri(config, "")).GET().build()), "version").longValue();
+    }
+
+    /**
+     * Get the rank a score would get
+     *
+     * @param config board configuration key
+     * @param score score to check
+     * @return rank, 0 being the best
+     * @throws IOException if the server can't be reached or returns an error
+     */
+    public int getRank(String config, double score) throws IOException {
+        return getNumber(send(HttpRequest.newBuilder(uri(config, "/rank?score=" + score)).GET().build()), "rank").intValue();
+    }
+
+    /**
+     * Read the best scores of a configuration into a new ScoreTable. The table's sequence number is the server's version of the table.
+     *
+     * @param config board configuration key
+     * @param count maximum number of scores to read
+     * @return table with the scores
+     * @throws IOException if the server can't be reached or returns an error
+     */
+    public ScoreTable fetchTable(String config, int count) throws IOException {
+        Map<String, Object> response = send(HttpRequest.newBuilder(uri(config, "/top?k=" + count)).GET().build());
+        ScoreTable table = new ScoreTable(config);
+        Object scores = response.get("scores");
+        if (!(scores instanceof List)) {
+            throw new IOException("Invalid response from leaderboard: scores missing");
+        }
+        for (Object entry : (List<?>) scores) {
+            if (!(entry instanceof Map)) {
+                throw new IOException("Invalid response from leaderboard: score expected");
+            }
+            Map<?, ?> score = (Map<?, ?>) entry;
+            if (!(score.get("name") instanceof String) || !(score.get("score") instanceof Double)) {
+                throw new IOException("Invalid response from leaderboard: score expected");
+            }
+            // servers without 3BV support send no bbbv
+            Object bbbv = score.get("bbbv");
+            table.addLoadedScore((String) score.get("name"), (Double) score.get("score"), bbbv instanceof Double ? ((Double) bbbv).intValue() : 0);
+        }
+        table.setSequence(getNumber(response, "version").longValue());
+        return table;
+    }
+
+    /**
+     * Build the address of a configuration's resource
+     *
+     * @param config board configuration key
+     * @param suffix rest of the path and query
+     * @return address
+     */
+    private URI uri(String config, String suffix) {
+        return URI.create(baseUrl + "/scores/" + URLEncoder.encode(config, StandardCharsets.UTF_8) + suffix);
+    }
+
+    /**
+     * Send a request and parse the JSON response
+     *
+     * @param request request to send
+     * @return response object
+     * @throws IOException if the server can't be reached, returns an error or an invalid response
+     */
+    private Map<String, Object> send(HttpRequest request) throws IOException {
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Leaderboard request interrupted");
+        }
+        Map<String, Object> body;
+        try {
+            body = Json.parseObject(response.body());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid response from leaderboard: " + e.getMessage());
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Leaderboard error " + response.statusCode() + ": " + body.get("error"));
+        }
+        return body;
+    }
+
+    /**
+     * Get a number from a response
+     *
+     * @param response response object
+     * @param name name of the number
+     * @return the number
+     * @throws IOException if the response has no such number
+     */
+    private static Double getNumber(Map<String, Object> response, String name) throws IOException {
+        Object value = response.get(name);
+        if (!(value instanceof Double)) {
+            throw new IOException("Invalid response from leaderboard: " + name + " missing");
+        }
+        return (Double) value;
+    }
+}
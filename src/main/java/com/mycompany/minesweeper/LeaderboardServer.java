@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * This class is a small HTTP server for a leaderboard shared by many game clients. Scores are kept in a LeaderboardStore.
+ * All requests and responses use JSON:
+ * - GET /scores/&lt;config&gt; returns {"config", "size", "version"}
+ * - POST /scores/&lt;config&gt; with body {"name", "score", "bbbv"} adds a score and returns its {"rank"}, bbbv (the board's 3BV) is optional
+ * - GET /scores/&lt;config&gt;/top?k=&lt;count&gt; returns {"config", "version", "scores": [{"rank", "name", "score", "bbbv", "bbbvPerSecond"}, ...]}
+ * - GET /scores/&lt;config&gt;/page?from=&lt;rank&gt;&amp;count=&lt;count&gt; returns a page in the same format
+ * - GET /scores/&lt;config&gt;/rank?score=&lt;score&gt; returns the {"rank", "size"} the score would get
+ * - GET /scores/&lt;config&gt;/rank?bbbvPerSecond=&lt;3BV/s&gt; returns the {"rank", "size"} the efficiency would get when ranked by efficiency
+ * top and page rank the scores by time, or by efficiency (highest 3BV/s first) with the parameter order=efficiency.
+ * Input is bounded: request bodies, names, page sizes and the number of configurations have the limits LEADERBOARD_MAX_* in MineConstants,
+ * and requests beyond them are refused with status 400.
+ * Ranks start at 0. Errors are returned as {"error"} with a 4xx status.
+ *
+ * @author Badi Moore
+ */
+public class LeaderboardServer {
+
+    private static final String CONTEXT = "/scores/";
+
+    private final LeaderboardStore store;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Create new leaderboard server. The server doesn't accept requests until it is started.
+     *
+     * @param store store to keep the scores in
+     * @param port port to listen on, 0 for any free port
+     * @throws IOException if the port can't be opened
+     */
+    public LeaderboardServer(LeaderboardStore store, int port) throws IOException {
+        this.store = store;
+        HttpHelper.enableNoDelay();
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = HttpHelper.newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext(CONTEXT, this::handle);
+    }
+
+    /**
+     * Start accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop accepting requests and stop the request threads
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * Get the port the server listens on
+     *
+     * @return port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Handle one request
+     *
+     * @param exchange request and response
+     * @throws IOException if the response can't be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            // path is /scores/<config> or /scores/<config>/<query>
+            String[] parts = exchange.getRequestURI().getRawPath().substring(CONTEXT.length()).split("/");
+            String config = URLDecoder.decode(parts[0], StandardCharsets.UTF_8);
+            if (config.isEmpty() || parts.length > 2) {
+                HttpHelper.sendError(exchange, 404, "Not found");
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            if (parts.length == 1 && method.equals("POST")) {
+                submit(exchange, config);
+            } else if (!method.equals("GET")) {
+                HttpHelper.sendError(exchange, 405, "Method not allowed");
+            } else if (parts.length == 1) {
+                HttpHelper.send(exchange, 200, "{\"config\":" + Json.quote(config) + ",\"size\":" + store.size(config)
+                        + ",\"version\":" + store.getVersion(config) + "}");
+            } else {
+                Map<String, String> query = HttpHelper.parseQuery(exchange.getRequestURI().getRawQuery());
+                switch (parts[1]) {
+                    case "top":
+                        sendPage(exchange, config, 0, HttpHelper.getInt(query, "k", MineConstants.MAXSCORES), getOrder(query));
+                        break;
+                    case "page":
+                        sendPage(exchange, config, HttpHelper.getInt(query, "from", 0), HttpHelper.getInt(query, "count", MineConstants.SCORES_PER_PAGE),
+                                getOrder(query));
+                        break;
+                    case "rank":
+                        int rank = query.containsKey("bbbvPerSecond")
+                                ? store.getEfficiencyRank(config, HttpHelper.getDouble(query, "bbbvPerSecond"))
+                                : store.getRank(config, HttpHelper.getDouble(query, "score"));
+                        HttpHelper.send(exchange, 200, "{\"rank\":" + rank + ",\"size\":" + store.size(config) + "}");
+                        break;
+                    default:
+                        HttpHelper.sendError(exchange, 404, "Not found");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            HttpHelper.sendError(exchange, 400, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Add the score in the request body
+     *
+     * @param exchange request and response
+     * @param config board configuration key
+     * @throws IOException if the request can't be read or the response can't be sent
+     */
+    private void submit(HttpExchange exchange, String config) throws IOException {
+        Map<String, Object> request = Json.parseObject(HttpHelper.readBody(exchange, MineConstants.LEADERBOARD_MAX_BODY));
+        Object name = request.get("name");
+        Object score = request.get("score");
+        Object bbbv = request.getOrDefault("bbbv", 0.0);
+        if (!(name instanceof String) || !(score instanceof Double) || !Double.isFinite((Double) score) || (Double) score < 0) {
+            throw new IllegalArgumentException("name (string) and score (non-negative number) expected");
+        }
+        if (((String) name).length() > MineConstants.LEADERBOARD_MAX_NAME) {
+            throw new IllegalArgumentException("name must have at most " + MineConstants.LEADERBOARD_MAX_NAME + " characters");
+        }
+        if (!(bbbv instanceof Double) || (Double) bbbv < 0 || (Double) bbbv > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("bbbv must be a non-negative number");
+        }
+        int rank = store.submit(config, (String) name, (Double) score, ((Double) bbbv).intValue());
+        HttpHelper.send(exchange, 200, "{\"rank\":" + rank + "}");
+    }
+
+    /**
+     * Get the order of scores asked for in a query
+     *
+     * @param query query parameters
+     * @return ScoreTable.BY_TIME, or ScoreTable.BY_EFFICIENCY if the query has order=efficiency
+     */
+    private static int getOrder(Map<String, String> query) {
+        String order = query.getOrDefault("order", "time");
+        switch (order) {
+            case "time":
+                return ScoreTable.BY_TIME;
+            case "efficiency":
+                return ScoreTable.BY_EFFICIENCY;
+            default:
+                throw new IllegalArgumentException("order must be time or efficiency");
+        }
+    }
+
+    /**
+     * Send a page of scores
+     *
+     * @param exchange request and response
+     * @param config board configuration key
+     * @param from rank of first score on page
+     * @param count maximum number of scores on page, at most MineConstants.LEADERBOARD_MAX_PAGE
+     * @param order ScoreTable.BY_TIME or ScoreTable.BY_EFFICIENCY
+     * @throws IOException if the response can't be sent
+     */
+    private void sendPage(HttpExchange exchange, String config, int from, int count, int order) throws IOException {
+        if (from < 0 || count < 0) {
+            throw new IllegalArgumentException("from and count must not be negative");
+        }
+        if (count > MineConstants.LEADERBOARD_MAX_PAGE) {
+            throw new IllegalArgumentException("At most " + MineConstants.LEADERBOARD_MAX_PAGE + " scores per request");
+        }
+        // the version is read before the page, so the page is never older than the version
+        long version = store.getVersion(config);
+        ArrayList<Score> page = store.getPage(config, from, count, order);
+        StringBuilder sb = new StringBuilder(64 + page.size() * 48);
+        sb.append("{\"config\":").append(Json.quote(config)).append(",\"version\":").append(version).append(",\"scores\":[");
+        for (int i = 0; i < page.size(); i++) {
+            Score score = page.get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"rank\":").append(from + i).append(",\"name\":").append(Json.quote(score.getName()))
+                    .append(",\"score\":").append(score.getScore()).append(",\"bbbv\":").append(score.getBbbv())
+                    .append(",\"bbbvPerSecond\":").append(score.getBbbvPerSecond()).append('}');
+        }
+        sb.append("]}");
+        HttpHelper.send(exchange, 200, sb.toString());
+    }
+
+    /**
+     * Run a leaderboard server until the process is stopped
+     *
+     * @param args optional port number, MineConstants.LEADERBOARD_PORT by default
+     * @throws IOException if the port can't be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : MineConstants.LEADERBOARD_PORT;
+        LeaderboardServer server = new LeaderboardServer(new LeaderboardStore(), port);
+        server.start();
+        System.out.println("Leaderboard listening on port " + server.getPort());
+    }
+}
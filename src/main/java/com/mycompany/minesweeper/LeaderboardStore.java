@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class keeps the score tables of a leaderboard shared by many game clients.
+ * Each board configuration has its own ScoreTable. Tables are guarded by striped read/write locks:
+ * a configuration's key picks one of MineConstants.LEADERBOARD_LOCK_STRIPES locks, so submissions to different
+ * configurations rarely wait for each other and reads of the same configuration can run in parallel.
+ * The sequence number of each table counts the submissions, so clients can check cheaply if a table has changed.
+ * At most MineConstants.LEADERBOARD_MAX_CONFIGS configurations are kept, submissions for further configurations are refused.
+ *
+ * @author Badi Moore
+ */
+public class LeaderboardStore {
+
+    private final ConcurrentHashMap<String, ScoreTable> tables;
+    private final ReentrantReadWriteLock[] locks;
+    private final AtomicInteger configCount; // number of configurations with a table, counted separately as the map's size is only an estimate
+
+    /**
+     * Create new empty store
+     */
+    public LeaderboardStore() {
+        tables = new ConcurrentHashMap<>();
+        configCount = new AtomicInteger();
+        locks = new ReentrantReadWriteLock[MineConstants.LEADERBOARD_LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Add a score
+     *
+     * @param config board configuration key
+     * @param name score holder's name
+     * @param score score
+     * @param bbbv 3BV of the board, 0 if unknown
+     * @return rank of the new score, 0 being the best
+     * @throws IllegalArgumentException if config is new and the store already has MineConstants.LEADERBOARD_MAX_CONFIGS configurations
+     */
+    public int submit(String config, String name, double score, int bbbv) {
+        ReentrantReadWriteLock lock = getLock(config);
+        lock.writeLock().lock();
+        try {
+            // a configuration always uses the same lock, so no other thread can add its table meanwhile
+            ScoreTable table = tables.get(config);
+            if (table == null) {
+                if (configCount.incrementAndGet() > MineConstants.LEADERBOARD_MAX_CONFIGS) {
+                    configCount.decrementAndGet();
+                    throw new IllegalArgumentException("At most " + MineConstants.LEADERBOARD_MAX_CONFIGS + " board configurations");
+                }
+                table = new ScoreTable(config);
+                tables.put(config, table);
+            }
+            int rank = table.getRank(score);
+            // scores are inserted after equal scores, so the new score gets the rank it was checked for
+            table.addLoadedScore(name, score, bbbv);
+            table.setSequence(table.getSequence() + 1);
+            return rank;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get a page of scores by rank
+     *
+     * @param config board configuration key
+     * @param from rank of first score on page
+     * @param count maximum number of scores on page
+     * @param order ScoreTable.BY_TIME or ScoreTable.BY_EFFICIENCY
+     * @return scores on the page
+     */
+    public ArrayList<Score> getPage(String config, int from, int count, int order) {
+        ReentrantReadWriteLock lock = getLock(config);
+        lock.readLock().lock();
+        try {
+            ScoreTable table = tables.get(config);
+            return table == null ? new ArrayList<>() : table.getPage(from, count, order);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the rank the given score would get
+     *
+     * @param config board configuration key
+     * @param score score to check
+     * @return rank, 0 being the best
+     */
+    public int getRank(String config, double score) {
+        ReentrantReadWriteLock lock = getLock(config);
+        lock.readLock().lock();
+        try {
+            ScoreTable table = tables.get(config);
+            return table == null ? 0 : table.getRank(score);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the rank a score with the given efficiency would get when ranked by efficiency
+     *
+     * @param config board configuration key
+     * @param bbbvPerSecond 3BV/s to check
+     * @return rank, 0 being the best
+     */
+    public int getEfficiencyRank(String config, double bbbvPerSecond) {
+        ReentrantReadWriteLock lock = getLock(config);
+        lock.readLock().lock();
+        try {
+            ScoreTable table = tables.get(config);
+            return table == null ? 0 : table.getEfficiencyRank(bbbvPerSecond);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get number of scores of a configuration
+     *
+     * @param config board configuration key
+     * @return number of scores
+     */
+    public int size(String config) {
+        ReentrantReadWriteLock lock = getLock(config);
+        lock.readLock().lock();
+        try {
+            ScoreTable table = tables.get(config);
+            return table == null ? 0 : table.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the version of a configuration's table, which increases with every submission
+     *
+     * @param config board configuration key
+     * @return version, 0 if no scores have been submitted
+     */
+    public long getVersion(String config) {
+        ReentrantReadWriteLock lock = getLock(config);
+        lock.readLock().lock();
+        try {
+            ScoreTable table = tables.get(config);
+            return table == null ? 0 : table.getSequence();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the lock guarding a configuration's table
+     *
+     * @param config board configuration key
+     * @return lock of configuration
+     */
+    private ReentrantReadWriteLock getLock(String config) {
+        // spread the hash bits so similar keys (e.g. "9x9x10" and "9x9x11") use different stripes
+        int hash = config.hashCode();
+        hash ^= hash >>> 16;
+        return locks[Math.floorMod(hash, locks.length)];
+    }
+}
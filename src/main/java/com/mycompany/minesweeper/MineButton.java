@@ -30,12 +30,20 @@ import javax.swing.border.Border;
 /**
  * This class extends JButton, to include the MineCoordinate information of the tile and methods for updating the button graphics depending on the MineCoordinate state
  *
+ * The game is played on another thread than the one painting the buttons, so the button doesn't read its MineCoordinate when painting.
+ * The game thread copies the tile's state with readState, and the event dispatch thread shows the copy with setState and update.
+ *
  * @author Badi Moore
  */
 public class MineButton extends JButton {
 
+    private static final int STATE_FLAGGED = 1; // bit of a copied state set for flagged tiles
+    private static final int STATE_REVEALED = 2; // bit of a copied state set for revealed tiles
+    private static final int STATE_CONTENT_SHIFT = 2; // the content is stored above the flag bits, offset so mines are 0
+
     private Border border;
     private MineCoordinate coordinate;
+    private int state; // shown state of the tile, as copied by readState
     private Color bgColor; // background color after revealed
     private Color fgColor; //  text color
     private final ImageIcon mineIcon; // icon for mine
@@ -48,6 +56,7 @@ public class MineButton extends JButton {
         this.coordinate = coordinate;
         this.mineIcon = mineIcon;
         this.flagIcon = flagIcon;
+        state = readState(false); // the game hasn't started yet, so the tile can be read here
         
         setFont(new Font("arial", Font.BOLD, 16));
 
@@ -114,7 +123,33 @@ public class MineButton extends JButton {
     }
 
     /**
-     * Update how the button is displayed. This method is executed on all buttons every time the user performs an action.
+     * Copy the current state of the tile. Call this on the thread making the moves.
+     * 
+     * @param showMine show the tile as revealed if it is a mine, as when the game has been lost
+     * @return copied state, to be shown with setState
+     */
+    public int readState(boolean showMine) {
+        int copied = (coordinate.getContent() - MineConstants.MINE) << STATE_CONTENT_SHIFT;
+        if (coordinate.isRevealed() || (showMine && coordinate.isMine())) {
+            copied |= STATE_REVEALED;
+        }
+        if (coordinate.isFlagged()) {
+            copied |= STATE_FLAGGED;
+        }
+        return copied;
+    }
+
+    /**
+     * Set the state of the tile the button shows. Call update afterwards to paint it.
+     * 
+     * @param state state copied with readState
+     */
+    public void setState(int state) {
+        this.state = state;
+    }
+
+    /**
+     * Update how the button is displayed. This method is executed on the buttons of the tiles changed by each move.
      */
     public void update() {
         // has the tile been revealed?
@@ -140,13 +175,37 @@ public class MineButton extends JButton {
         }
     }
 
+    /**
+     * Shade an unrevealed tile by its probability of being a mine, from the unrevealed color (safe) to the mine color (certain mine).
+     * The probability is also shown as the tile's tooltip. Revealed tiles are not changed.
+     * 
+     * @param probability probability between 0 and 1, or a negative value to remove the shading
+     */
+    public void setProbability(double probability) {
+        if (isRevealed()) {
+            return;
+        }
+        if (probability < 0) {
+            setBackground(MineConstants.COLOR_UNREVEALED);
+            setToolTipText(null);
+            return;
+        }
+        Color safe = MineConstants.COLOR_UNREVEALED;
+        Color mine = MineConstants.COLOR_MINE;
+        setBackground(new Color(
+                (int) Math.round(safe.getRed() + (mine.getRed() - safe.getRed()) * probability),
+                (int) Math.round(safe.getGreen() + (mine.getGreen() - safe.getGreen()) * probability),
+                (int) Math.round(safe.getBlue() + (mine.getBlue() - safe.getBlue()) * probability)));
+        setToolTipText(Math.round(probability * 100) + "% mine");
+    }
+
     /**
      * Has the tile been flagged?
      * 
      * @return has the tile been flagged or not?
      */
     public boolean isFlagged() {
-        return coordinate.isFlagged();
+        return (state & STATE_FLAGGED) != 0;
     }
     
     /**
@@ -155,7 +214,7 @@ public class MineButton extends JButton {
      * @return is the tile a mine?
      */
     public boolean isMine() {
-        return coordinate.isMine();
+        return getContent() == MineConstants.MINE;
     }
 
     /**
@@ -164,7 +223,7 @@ public class MineButton extends JButton {
      * @return is the tile empty?
      */
     public boolean isEmpty() {
-        return coordinate.isEmpty();
+        return getContent() == MineConstants.EMPTY;
     }
 
     /**
@@ -173,7 +232,7 @@ public class MineButton extends JButton {
      * @return has the tile been revealed?
      */
     public boolean isRevealed() {
-        return coordinate.isRevealed();
+        return (state & STATE_REVEALED) != 0;
     }
 
     /**
@@ -203,6 +262,6 @@ public class MineButton extends JButton {
      * @return content info for tile
      */
     public int getContent() {
-        return coordinate.getContent();
+        return (state >> STATE_CONTENT_SHIFT) + MineConstants.MINE;
     }
 }
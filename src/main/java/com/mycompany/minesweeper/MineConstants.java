@@ -54,8 +54,53 @@ public final class MineConstants {
 
     public static final int MINE = -1;
     public static final int EMPTY = 0;
+    // codes of what the player sees on a tile, besides 0-8 for a revealed tile with its adjacent mines
+    public static final int TILE_HIDDEN = 9;
+    public static final int TILE_FLAGGED = 10;
+    public static final int TILE_MINE = 11; // only shown once the game is lost
 
-    public static final String SCOREFILE = "MineScores.txt";
+    public static final String SCOREFILE = "MineScores.idx"; // index of score segments, one segment per board configuration
+    public static final String SCORESEGMENT_PREFIX = "MineScores-"; // segment files are named <prefix><segment>.dat
+    public static final String SCOREFILE_LEGACY = "MineScores.dat"; // version 1 binary score file, migrated to segments on first start
+    public static final String SKETCHFILE_LEGACY = "MineScores.qsk"; // version 1 game time sketch file
+    public static final String SCOREFILE_LOCK = "MineScores.lock"; // locked while score files are read or written, so several games can share them
+    public static final String SCOREFILE_TEXT = "MineScores.txt"; // old text format, migrated to segments on first start
+    public static final int MAX_LOADED_SCORETABLES = 32; // maximum number of score tables kept in memory
     public static final int MAXSCORES = 10;
+    public static final int LEADERBOARD_PORT = 8470; // default port of the leaderboard server
+    public static final int HTTP_THREADS_PER_CORE = 4; // request threads of an HTTP server per CPU core
+    public static final int LEADERBOARD_LOCK_STRIPES = 64; // number of locks shared by the leaderboard's score tables
+    public static final int LEADERBOARD_FETCH_SCORES = 1000; // number of best scores a client fetches from the leaderboard per configuration
+    public static final int LEADERBOARD_MAX_PAGE = LEADERBOARD_FETCH_SCORES; // most scores the leaderboard returns for one request
+    public static final int LEADERBOARD_MAX_BODY = 4096; // largest request body in bytes the leaderboard accepts
+    public static final int LEADERBOARD_MAX_NAME = 64; // longest name the leaderboard accepts with a score
+    public static final int LEADERBOARD_MAX_CONFIGS = 1024; // most board configurations the leaderboard keeps scores for
+    public static final int GAMESERVER_PORT = 8471; // default port of the headless game server
+    public static final int BOTSERVER_PORT = 8472; // default port of the binary bot protocol server
+    public static final int BOT_BUFFER_SIZE = 64 * 1024; // size of each bot connection's read buffer and initial write buffer
+    public static final int BOT_MAX_BATCH = 4096; // most moves in one bot move batch
+    public static final int BOT_MAX_REQUEST = 7 + BOT_MAX_BATCH * 5; // largest allowed bot request payload in bytes, fits a full move batch
+    public static final int BOT_MAX_PENDING_OUTPUT = 1024 * 1024; // bytes of unsent responses after which a bot connection stops reading requests
+    public static final int BOT_MAX_GAMES = 64; // most games one bot connection can have open at a time
+    public static final int SPECTATOR_QUEUE_FRAMES = 256; // frames queued for a spectator before it is considered to have fallen behind
+    public static final int SPECTATOR_MAX_OVERFLOWS = 16; // times a spectator may fall behind before it is disconnected
+    public static final int SPECTATOR_KEYFRAME_INTERVAL = 64; // moves between keyframes sent to all spectators
+    public static final long HINT_TIME_BUDGET = 5; // time in ms the solver may use for a hint or a batch of automatic moves
+    public static final long HEATMAP_TIME_BUDGET = 2000; // time in ms the probability overlay may compute before estimating the rest
+    public static final int PAINT_FRAME_INTERVAL = 16; // time in ms between frames of progressive board painting
+    public static final long PAINT_FRAME_BUDGET = 8; // time in ms one frame may spend painting changed tiles
+    public static final int PAINT_CHUNK_SIZE = 4096; // changed tiles handed from the game thread to the painter at once
+    public static final int BOARD_BANK_SIZE = 4; // boards generated in advance for each board configuration
+    public static final int PARALLEL_CASCADE_SIZE = 65536; // tiles in an opening before it is revealed in parallel
+    public static final int PARALLEL_CASCADE_CHUNK = 16384; // tiles revealed by one worker task in a parallel reveal
+    public static final int BBBV_MAX_ATTEMPTS = 10000; // boards generated when looking for one within a 3BV range before giving up
+    public static final int EVENT_BUFFER_SIZE = 256; // game event batches buffered per subscriber before batches are dropped for it
+    public static final int SERVER_MAX_TILES = 10000; // largest board the game server hosts
+    public static final int SESSION_SHARDS = 64; // number of independently locked parts of the game server's session registry
+    public static final long SESSION_IDLE_TIMEOUT = 60000; // time in ms after which an unused game is parked in serialized form
+    public static final long SESSION_EXPIRY = 24 * 60 * 60 * 1000; // time in ms after which a parked game is forgotten
+    public static final long SESSION_SWEEP_INTERVAL = 10000; // time in ms between checks for idle games
+    public static final long IO_SHUTDOWN_TIMEOUT = 5000; // time in ms given to unfinished file writes when the game exits
+    public static final int SCORES_PER_PAGE = 100; // rows on one page of the high score window
 
 }
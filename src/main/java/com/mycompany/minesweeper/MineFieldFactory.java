@@ -16,8 +16,10 @@
  */
 package com.mycompany.minesweeper;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
 
 /**
  * This class is used to generate a grid of MineCoordinates for a game of
@@ -37,30 +39,307 @@ public class MineFieldFactory {
      * @return 2-d array of MineCoordinates - coordinate (0,0) is at top left
      */
     public static MineCoordinate[][] createMineField(int width, int height, int mineCount) {
+        return createMineField(Topology.rectangle(width, height), mineCount);
+    }
 
-        MineCoordinate[][] mineField = new MineCoordinate[width][height];
-        ArrayList<MineCoordinate> mineList = new ArrayList<>();
+    /**
+     * Create a 2-dimensional array of MineCoordinates for a board of any topology
+     *
+     * @param topology topology of board, giving the size of the grid and the neighbours of each tile
+     * @param mineCount number of mines
+     * @return 2-d array of MineCoordinates - coordinate (0,0) is at top left
+     */
+    public static MineCoordinate[][] createMineField(Topology topology, int mineCount) {
+        int width = topology.getWidth();
+        int height = topology.getHeight();
+
+        // create the coordinates column by column, so they lie in memory in the order the board is scanned.
+        // shuffling the coordinates themselves would scatter them over the heap and make every pass over a large board miss the cache
+        MineCoordinate[][] mineField = createEmptyField(width, height);
+
+        // shuffle tile numbers instead, as x * height + y
+        int[] candidates = new int[width * height];
+        for (int tile = 0; tile < candidates.length; tile++) {
+            candidates[tile] = tile;
+        }
+        drawMines(mineField, candidates, candidates.length, mineCount);
+
+        // set value on adjacent mines for each coordinate
+        setAdjacentMines(mineField, topology);
+
+        return mineField;
+    }
 
-        // initially create and assign the coordinates to an ArrayList
-        // this will be used to randomly assign mine locations before transferring the MineCoordinates to the 2d array
+    /**
+     * Create a board without mines. Mines are placed later with placeMines, when the first tile is revealed.
+     *
+     * @param width number of tiles in x-dimension
+     * @param height number of tiles in y-dimension
+     * @return 2-d array of empty MineCoordinates - coordinate (0,0) is at top left
+     */
+    public static MineCoordinate[][] createEmptyField(int width, int height) {
+        MineCoordinate[][] mineField = new MineCoordinate[width][height];
         for (int i = 0; i < width; i++) {
             for (int j = 0; j < height; j++) {
-                mineList.add(new MineCoordinate(i, j));
+                mineField[i][j] = new MineCoordinate(i, j);
             }
         }
+        return mineField;
+    }
 
-        mineList = shuffleCoordinates(mineList); // shuffle the coordinate indexes
-        addMines(mineList, mineCount); // add the mines
+    /**
+     * Place mines on a board created with createEmptyField, keeping the 3x3 box centered on the first revealed tile free of mines,
+     * so the first revealed tile is always empty and opens an opening. If the board is too full for that, only the revealed tile is kept free.
+     * Adjacent mine values are set by counting each mine into its neighbours, so only the mines' surroundings are visited.
+     *
+     * @param mineField the 2d array of empty MineCoordinates
+     * @param mineCount number of mines
+     * @param safeX X-coordinate of the first revealed tile
+     * @param safeY Y-coordinate of the first revealed tile
+     */
+    public static void placeMines(MineCoordinate[][] mineField, int mineCount, int safeX, int safeY) {
+        placeMines(mineField, mineCount, safeX, safeY, Topology.rectangle(mineField.length, mineField[0].length));
+    }
 
-        // move the MineCoordinates to the array
-        for (MineCoordinate mine : mineList) {
-            mineField[mine.getX()][mine.getY()] = mine;
+    /**
+     * Place mines on a board of any topology created with createEmptyField, keeping the first revealed tile and its neighbours free of mines.
+     * If the board is too full for that, only the revealed tile is kept free.
+     *
+     * @param mineField the 2d array of empty MineCoordinates
+     * @param mineCount number of mines
+     * @param safeX X-coordinate of the first revealed tile
+     * @param safeY Y-coordinate of the first revealed tile
+     * @param topology topology of board
+     * @throws IllegalArgumentException if the mines don't leave the first revealed tile free
+     */
+    public static void placeMines(MineCoordinate[][] mineField, int mineCount, int safeX, int safeY, Topology topology) {
+        int width = mineField.length;
+        int height = mineField[0].length;
+        if (mineCount < 0 || mineCount >= width * height) {
+            throw new IllegalArgumentException("Board with " + width * height + " tiles must have 0 to " + (width * height - 1) + " mines, not " + mineCount);
         }
 
-        // set value on adjacent mines for each coordinate
-        setAdjacentMines(mineField);
+        // mark the first revealed tile and its neighbours
+        boolean[] safe = new boolean[width * height];
+        safe[safeX * height + safeY] = true;
+        int[] list = new int[Topology.MAX_NEIGHBOURS];
+        int count = listNeighbours(topology, safeX, safeY, list);
+        for (int i = 0; i < count; i++) {
+            safe[list[i]] = true;
+        }
 
-        return mineField;
+        // list the tiles that may get a mine, as x * height + y
+        int[] candidates = new int[width * height];
+        int size = 0;
+        for (int tile = 0; tile < candidates.length; tile++) {
+            if (!safe[tile]) {
+                candidates[size++] = tile;
+            }
+        }
+        if (size < mineCount) {
+            size = 0;
+            for (int tile = 0; tile < candidates.length; tile++) {
+                if (tile != safeX * height + safeY) {
+                    candidates[size++] = tile;
+                }
+            }
+        }
+
+        drawMines(mineField, candidates, size, mineCount);
+
+        // count each mine into its neighbours that aren't mines themselves
+        // the border of the padded grid is a mine too, so it is skipped without bounds checks
+        MineCoordinate border = new MineCoordinate(-1, -1);
+        border.setContent(MineConstants.MINE);
+        PaddedGrid paddedGrid = topology.getPaddedGrid();
+        MineCoordinate[] tiles = paddedGrid.pad(mineField, border);
+        int[] offsets = paddedGrid.getOffsets();
+        for (int i = 0; i < mineCount; i++) {
+            int tile = paddedGrid.index(candidates[i] / height, candidates[i] % height);
+            if (topology.getKind() == Topology.RECTANGLE) {
+                for (int offset : offsets) {
+                    addAdjacentMine(tiles[tile + offset]);
+                }
+            } else {
+                int[] neighbourStart = topology.getNeighbourStart();
+                int[] neighbours = topology.getNeighbours();
+                for (int n = neighbourStart[tile]; n < neighbourStart[tile + 1]; n++) {
+                    addAdjacentMine(tiles[neighbours[n]]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Place mines on randomly drawn candidate tiles with a partial Fisher-Yates shuffle: only the first mineCount candidates are drawn.
+     * The drawn tiles are moved to the start of the candidate array.
+     *
+     * @param mineField the 2d array of MineCoordinates
+     * @param candidates tiles that may get a mine, as x * height + y
+     * @param size number of candidates
+     * @param mineCount number of mines
+     */
+    private static void drawMines(MineCoordinate[][] mineField, int[] candidates, int size, int mineCount) {
+        int height = mineField[0].length;
+        ThreadLocalRandom random = ThreadLocalRandom.current(); // each generating thread has its own generator
+        for (int i = 0; i < mineCount; i++) {
+            int j = i + random.nextInt(size - i);
+            int mine = candidates[j];
+            candidates[j] = candidates[i];
+            candidates[i] = mine;
+            mineField[mine / height][mine % height].setContent(MineConstants.MINE);
+        }
+    }
+
+    /**
+     * Count a mine into the adjacent mines of a neighbour, unless the neighbour is a mine itself
+     *
+     * @param neighbour neighbour of a mine
+     */
+    private static void addAdjacentMine(MineCoordinate neighbour) {
+        if (!neighbour.isMine()) {
+            neighbour.setContent(neighbour.getContent() + 1);
+        }
+    }
+
+    /**
+     * Create a 2-dimensional array of MineCoordinates for a board configuration
+     *
+     * @param config board configuration
+     * @return 2-d array of MineCoordinates - coordinate (0,0) is at top left
+     */
+    public static MineCoordinate[][] createMineField(BoardConfig config) {
+        return createMineField(config.getWidth(), config.getHeight(), config.getMines());
+    }
+
+    /**
+     * Create a board whose 3BV is within the given range.
+     * Candidate boards are generated in parallel, one batch per round with one candidate per CPU,
+     * until a candidate is accepted or MineConstants.BBBV_MAX_ATTEMPTS candidates have been tried.
+     * Candidates are rejected early by a lower bound of their 3BV, before their openings are indexed.
+     * 
+     * @param width number of tiles in x-dimension
+     * @param height number of tiles in y-dimension
+     * @param mineCount number of mines
+     * @param minBbbv least accepted 3BV
+     * @param maxBbbv greatest accepted 3BV
+     * @return 2-d array of MineCoordinates, or null if no board within the range was found
+     */
+    public static MineCoordinate[][] createMineField(int width, int height, int mineCount, int minBbbv, int maxBbbv) {
+        int batch = Runtime.getRuntime().availableProcessors();
+        for (int attempts = 0; attempts < MineConstants.BBBV_MAX_ATTEMPTS; attempts += batch) {
+            Optional<MineCoordinate[][]> found = IntStream.range(0, batch).parallel()
+                    .mapToObj(i -> createMineField(width, height, mineCount))
+                    .filter(mineField -> isBbbvInRange(mineField, minBbbv, maxBbbv))
+                    .findAny();
+            if (found.isPresent()) {
+                return found.get();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compute the difficulty statistics of a board
+     * 
+     * @param mineField the 2d array of MineCoordinates describing the game board
+     * @param openings index of the board's openings
+     * @return statistics of board
+     */
+    public static BoardStats computeStats(MineCoordinate[][] mineField, OpeningIndex openings) {
+        return computeStats(mineField, openings, Topology.rectangle(mineField.length, mineField[0].length));
+    }
+
+    /**
+     * Compute the difficulty statistics of a board of any topology
+     * 
+     * @param mineField the 2d array of MineCoordinates describing the game board
+     * @param openings index of the board's openings
+     * @param topology topology of board
+     * @return statistics of board
+     */
+    public static BoardStats computeStats(MineCoordinate[][] mineField, OpeningIndex openings, Topology topology) {
+        int width = mineField.length;
+        int height = mineField[0].length;
+
+        // mark the tiles revealed by opening clicks
+        boolean[] inOpening = new boolean[width * height];
+        for (int opening = 0; opening < openings.getOpeningCount(); opening++) {
+            for (int i = openings.getStart(opening); i < openings.getEnd(opening); i++) {
+                inOpening[openings.getX(i) * height + openings.getY(i)] = true;
+            }
+        }
+
+        // every other numbered tile needs a click of its own; group them into islands with a flood fill
+        boolean[] mine = findTiles(mineField, MineConstants.MINE);
+        int clicks = 0;
+        int islands = 0;
+        int[] stack = new int[width * height];
+        int[] list = new int[Topology.MAX_NEIGHBOURS];
+        for (int tile = 0; tile < inOpening.length; tile++) {
+            if (inOpening[tile] || mine[tile]) {
+                continue;
+            }
+            islands++;
+            inOpening[tile] = true; // visited tiles are marked like opened ones
+            int size = 0;
+            stack[size++] = tile;
+            while (size > 0) {
+                int current = stack[--size];
+                clicks++;
+                int count = listNeighbours(topology, current / height, current % height, list);
+                for (int i = 0; i < count; i++) {
+                    int neighbour = list[i];
+                    if (!inOpening[neighbour] && !mine[neighbour]) {
+                        inOpening[neighbour] = true;
+                        stack[size++] = neighbour;
+                    }
+                }
+            }
+        }
+        return new BoardStats(openings.getOpeningCount() + clicks, openings.getOpeningCount(), islands);
+    }
+
+    /**
+     * Is the 3BV of a board within the given range?
+     * The numbered tiles with no empty neighbour each add one to the 3BV, so they are counted first:
+     * if they alone are too many, the board is rejected without indexing its openings.
+     * 
+     * @param mineField the 2d array of MineCoordinates describing the game board
+     * @param minBbbv least accepted 3BV
+     * @param maxBbbv greatest accepted 3BV
+     * @return is 3BV within range?
+     */
+    private static boolean isBbbvInRange(MineCoordinate[][] mineField, int minBbbv, int maxBbbv) {
+        int isolated = 0;
+        for (int x = 0; x < mineField.length; x++) {
+            for (int y = 0; y < mineField[x].length; y++) {
+                if (mineField[x][y].getContent() > 0 && !hasEmptyNeighbour(mineField, x, y) && ++isolated > maxBbbv) {
+                    return false;
+                }
+            }
+        }
+        int bbbv = computeStats(mineField, createOpeningIndex(mineField)).getBbbv();
+        return bbbv >= minBbbv && bbbv <= maxBbbv;
+    }
+
+    /**
+     * Does a tile have an empty neighbour?
+     * 
+     * @param mineField the 2d array of MineCoordinates describing the game board
+     * @param x X-coordinate of tile
+     * @param y Y-coordinate of tile
+     * @return is any adjacent tile empty?
+     */
+    private static boolean hasEmptyNeighbour(MineCoordinate[][] mineField, int x, int y) {
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, mineField.length - 1); i++) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, mineField[i].length - 1); j++) {
+                if (mineField[i][j].isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     /**
@@ -70,16 +349,283 @@ public class MineFieldFactory {
      * @param mineField the 2d array of MineCoordinates describing the game board
      */
     public static void setAdjacentMines(MineCoordinate[][] mineField) {
-        // iterate through each coordinate and calculate adjacent mines for each one that doesn't have a mine.
+        setAdjacentMines(mineField, Topology.rectangle(mineField.length, mineField[0].length));
+    }
+
+    /**
+     * Set the adjacent mine values for a MineCoordinate grid of any topology
+     * mines must be assigned before running this
+     * 
+     * @param mineField the 2d array of MineCoordinates describing the game board
+     * @param topology topology of board
+     */
+    public static void setAdjacentMines(MineCoordinate[][] mineField, Topology topology) {
+        PaddedGrid paddedGrid = topology.getPaddedGrid();
+        int[] offsets = paddedGrid.getOffsets();
+        boolean rectangle = topology.getKind() == Topology.RECTANGLE;
+        int[] neighbourStart = rectangle ? null : topology.getNeighbourStart();
+        int[] neighbours = rectangle ? null : topology.getNeighbours();
+
+        // copy the mines into a padded array, 1 for a mine; the border has no mines
+        int[] mines = new int[paddedGrid.getSize()];
         for (int i = 0; i < mineField.length; i++) {
             for (int j = 0; j < mineField[i].length; j++) {
-                // skip over any mines
                 if (mineField[i][j].isMine()) {
+                    mines[paddedGrid.index(i, j)] = 1;
+                }
+            }
+        }
+
+        // iterate through each coordinate and sum the mines of its neighbours for each one that doesn't have a mine.
+        // every tile has eight neighbours in the padded array, so the sum needs no bounds checks
+        for (int i = 0; i < mineField.length; i++) {
+            for (int j = 0; j < mineField[i].length; j++) {
+                int tile = paddedGrid.index(i, j);
+                // skip over any mines
+                if (mines[tile] != 0) {
+                    continue;
+                }
+                int adjacent = 0;
+                if (rectangle) {
+                    for (int offset : offsets) {
+                        adjacent += mines[tile + offset];
+                    }
+                } else {
+                    for (int n = neighbourStart[tile]; n < neighbourStart[tile + 1]; n++) {
+                        adjacent += mines[neighbours[n]];
+                    }
+                }
+                mineField[i][j].setContent(adjacent);
+            }
+        }
+    }
+
+    /**
+     * Find the openings of a board: connected regions of empty tiles and their numbered borders.
+     * Empty tiles are grouped with union-find in one pass over the board, then each opening's tiles
+     * are listed once, so revealing an opening needs no search. Adjacent mines must be set before running this.
+     * 
+     * @param mineField the 2d array of MineCoordinates describing the game board
+     * @return index of the board's openings
+     */
+    public static OpeningIndex createOpeningIndex(MineCoordinate[][] mineField) {
+        return createOpeningIndex(mineField, Topology.rectangle(mineField.length, mineField[0].length));
+    }
+
+    /**
+     * Find the openings of a board of any topology
+     * 
+     * @param mineField the 2d array of MineCoordinates describing the game board
+     * @param topology topology of board
+     * @return index of the board's openings
+     */
+    public static OpeningIndex createOpeningIndex(MineCoordinate[][] mineField, Topology topology) {
+        int width = mineField.length;
+        int height = mineField[0].length;
+        int[] parent = new int[width * height]; // union-find parent of each tile, only used for empty tiles
+        for (int tile = 0; tile < parent.length; tile++) {
+            parent[tile] = tile;
+        }
+        // the passes below read tiles many times in and out of order; a flat copy keeps them from chasing MineCoordinates around the heap
+        boolean[] empty = findTiles(mineField, MineConstants.EMPTY);
+
+        // union each empty tile with the empty tiles after it; the tiles before it have already been joined with it
+        int[] list = new int[Topology.MAX_NEIGHBOURS];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int tile = x * height + y;
+                if (!empty[tile]) {
+                    continue;
+                }
+                if (topology.getKind() != Topology.RECTANGLE) {
+                    int count = listNeighbours(topology, x, y, list);
+                    for (int i = 0; i < count; i++) {
+                        int neighbour = list[i];
+                        if (neighbour > tile && empty[neighbour]) {
+                            union(parent, tile, neighbour);
+                        }
+                    }
                     continue;
                 }
-                mineField[i][j].setContent(getAdjacentMines(mineField, i, j)); // fetch the value for adjacent mines
+                // on a rectangle the tiles after it are the ones below and to the right
+                if (y > 0 && x + 1 < width && empty[tile + height - 1]) {
+                    union(parent, tile, tile + height - 1);
+                }
+                if (y + 1 < height && empty[tile + 1]) {
+                    union(parent, tile, tile + 1);
+                }
+                if (x + 1 < width) {
+                    if (empty[tile + height]) {
+                        union(parent, tile, tile + height);
+                    }
+                    if (y + 1 < height && empty[tile + height + 1]) {
+                        union(parent, tile, tile + height + 1);
+                    }
+                }
+            }
+        }
+
+        // number the openings in order of their first tile
+        int[] tileOpening = new int[width * height];
+        Arrays.fill(tileOpening, -1);
+        int openingCount = 0;
+        for (int tile = 0; tile < tileOpening.length; tile++) {
+            if (!empty[tile]) {
+                continue;
+            }
+            int root = find(parent, tile);
+            if (tileOpening[root] == -1) {
+                tileOpening[root] = openingCount++;
+            }
+            tileOpening[tile] = tileOpening[root];
+        }
+
+        // group the empty tiles by opening
+        int[] openingEmpty = new int[openingCount];
+        for (int opening : tileOpening) {
+            if (opening >= 0) {
+                openingEmpty[opening]++;
+            }
+        }
+        int[] emptyStart = new int[openingCount + 1];
+        for (int opening = 0; opening < openingCount; opening++) {
+            emptyStart[opening + 1] = emptyStart[opening] + openingEmpty[opening];
+        }
+        int[] emptyTiles = new int[emptyStart[openingCount]];
+        int[] next = Arrays.copyOf(emptyStart, openingCount);
+        for (int tile = 0; tile < tileOpening.length; tile++) {
+            if (tileOpening[tile] >= 0) {
+                emptyTiles[next[tileOpening[tile]]++] = tile;
+            }
+        }
+
+        // list each opening's empty tiles followed by its border, each border tile once per opening
+        int[] openingStart = new int[openingCount + 1];
+        int[] openingTiles = new int[emptyTiles.length * 2];
+        int[] lastOpening = new int[width * height]; // last opening each border tile was added to, plus one
+        int size = 0;
+        for (int opening = 0; opening < openingCount; opening++) {
+            openingStart[opening] = size;
+            for (int i = emptyStart[opening]; i < emptyStart[opening + 1]; i++) {
+                openingTiles = ensureCapacity(openingTiles, size + 1);
+                openingTiles[size++] = emptyTiles[i];
+            }
+            for (int i = emptyStart[opening]; i < emptyStart[opening + 1]; i++) {
+                // the neighbours of an empty tile are never mines, so every non-empty neighbour is a numbered border tile
+                int count = listNeighbours(topology, emptyTiles[i] / height, emptyTiles[i] % height, list);
+                for (int n = 0; n < count; n++) {
+                    int border = list[n];
+                    if (empty[border] || lastOpening[border] == opening + 1) {
+                        continue;
+                    }
+                    lastOpening[border] = opening + 1;
+                    openingTiles = ensureCapacity(openingTiles, size + 1);
+                    openingTiles[size++] = border;
+                }
+            }
+        }
+        openingStart[openingCount] = size;
+
+        return new OpeningIndex(height, tileOpening, openingStart, openingEmpty, Arrays.copyOf(openingTiles, size));
+    }
+
+    /**
+     * Find the tiles with the given content
+     * 
+     * @param mineField the 2d array of MineCoordinates describing the game board
+     * @param content content to look for, e.g. MineConstants.MINE
+     * @return does each tile have the content? by x * height + y
+     */
+    private static boolean[] findTiles(MineCoordinate[][] mineField, int content) {
+        int height = mineField[0].length;
+        boolean[] found = new boolean[mineField.length * height];
+        for (int x = 0; x < mineField.length; x++) {
+            for (int y = 0; y < height; y++) {
+                found[x * height + y] = mineField[x][y].getContent() == content;
             }
         }
+        return found;
+    }
+
+    /**
+     * List the neighbours of a tile as x * height + y.
+     * This is for building indexes and statistics; the game itself iterates the padded neighbour arrays directly.
+     * 
+     * @param topology topology of board
+     * @param x X-coordinate of tile
+     * @param y Y-coordinate of tile
+     * @param list array to write the neighbours to, at least Topology.MAX_NEIGHBOURS long
+     * @return number of neighbours
+     */
+    private static int listNeighbours(Topology topology, int x, int y, int[] list) {
+        int width = topology.getWidth();
+        int height = topology.getHeight();
+        int count = 0;
+        if (topology.getKind() == Topology.RECTANGLE) {
+            for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, width - 1); i++) {
+                for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, height - 1); j++) {
+                    if (i != x || j != y) {
+                        list[count++] = i * height + j;
+                    }
+                }
+            }
+            return count;
+        }
+        PaddedGrid paddedGrid = topology.getPaddedGrid();
+        int[] neighbourStart = topology.getNeighbourStart();
+        int[] neighbours = topology.getNeighbours();
+        int tile = paddedGrid.index(x, y);
+        for (int n = neighbourStart[tile]; n < neighbourStart[tile + 1]; n++) {
+            list[count++] = paddedGrid.getX(neighbours[n]) * height + paddedGrid.getY(neighbours[n]);
+        }
+        return count;
+    }
+
+    /**
+     * Find the root of a tile in a union-find forest, shortening the path on the way
+     * 
+     * @param parent parent of each tile
+     * @param tile tile to find root for
+     * @return root tile
+     */
+    private static int find(int[] parent, int tile) {
+        while (parent[tile] != tile) {
+            parent[tile] = parent[parent[tile]]; // path halving
+            tile = parent[tile];
+        }
+        return tile;
+    }
+
+    /**
+     * Join the sets of two tiles in a union-find forest
+     * 
+     * @param parent parent of each tile
+     * @param a first tile
+     * @param b second tile
+     */
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        // attach the later root to the earlier one, so roots stay small and paths short
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+
+    /**
+     * Make sure an array can hold the given number of entries, doubling its size if needed
+     * 
+     * @param array array to check
+     * @param size number of entries needed
+     * @return the array, or a larger copy of it
+     */
+    private static int[] ensureCapacity(int[] array, int size) {
+        if (size <= array.length) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(size, array.length * 2));
     }
 
     /**
@@ -113,36 +659,4 @@ public class MineFieldFactory {
         }
         return mines;
     }
-
-    /**
-     * Randomly shuffle the contents of a MineCoordinate ArrayList and return shuffled list
-     * 
-     * @param baseList list to shuffle
-     * @return shuffled list
-     */
-    private static ArrayList<MineCoordinate> shuffleCoordinates(ArrayList<MineCoordinate> baseList) {
-
-        ArrayList<MineCoordinate> shuffledList = new ArrayList<>();
-        
-        // remove a random element from original list and add to new list
-        // repeat for every element in original list
-        int size = baseList.size();
-        for (int i = 0; i < size; i++) {
-            shuffledList.add(baseList.remove(new Random().nextInt(baseList.size())));
-        }
-        // new list is now in random order
-        return shuffledList;
-    }
-
-    /**
-     * Set the first coordinates in ArrayList as mines. The List should be shuffled with shuffleCoordinates() first to ensure random placement.
-     * 
-     * @param mineList coordinate list to add mines to
-     * @param mines number of mines to add
-     */
-    private static void addMines(ArrayList<MineCoordinate> mineList, int mines) {
-        for (int i = 0; i < mines; i++) {
-            mineList.get(i).setContent(MineConstants.MINE); // set content value of coordinate as mine
-        }
-    }
 }
@@ -16,7 +16,11 @@
  */
 package com.mycompany.minesweeper;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.stream.IntStream;
 
 /**
  * This class handles the game flow for a game of minesweeper on an abstract level.
@@ -31,12 +35,28 @@ public class MineLogic {
     public static final int WON = 1;
     public static final int LOST = 2;
 
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(int[].class); // atomic updates of per-tile counts
+
     private MineCoordinate[][] coordinateGrid;
     private int mines; // number of unflagged mines
+    private int mineCount; // total number of mines
+    private boolean minesPlaced; // have the mines been placed? with deferred placement they are placed on the first reveal
     private int unrevealed; // number of unrevealed tiles;
     private int flags; // number of flagged tiles;
     private int winState; // is game won, unfinished, or lost?
     private boolean firstMove; // are all tiles still unrevealed? this is used to make sure the first revealed tile can't be a mine
+    private int[] changedTiles; // tiles revealed, flagged or unflagged by the last move, as x * height + y
+    private int changeCount; // number of entries in changedTiles
+    private GameEventPublisher eventPublisher; // receives the events of each move, or null
+    private GameEventBatch events; // events of the current move, or null if nobody is listening
+    private OpeningIndex openings; // openings of the board, used to reveal an opening without searching it
+    private Topology topology; // which tiles are neighbours
+    private PaddedGrid paddedGrid; // layout of the flat per-tile arrays below
+    private int[] neighbourStart; // start of each tile's neighbours in neighbours, or null on a rectangle, which uses paddedGrid's offsets
+    private int[] neighbours; // neighbours of every tile, in paddedGrid's layout
+    private MineCoordinate[] tiles; // the board's tiles in paddedGrid's layout, with a revealed sentinel tile on the border
+    private int[] adjacentFlags; // number of flagged neighbours of each tile, in paddedGrid's layout
+    private int[] adjacentUnrevealed; // number of unrevealed (including flagged) neighbours of each tile, in paddedGrid's layout
 
     /**
      * Set up game
@@ -45,12 +65,119 @@ public class MineLogic {
      * @param mines number of mines in game
      */
     public MineLogic(MineCoordinate[][] coordinateGrid, int mines) {
+        this(coordinateGrid, mines, false);
+    }
+
+    /**
+     * Set up game, optionally placing the mines only when the first tile is revealed.
+     * With deferred placement the first revealed tile and its neighbours never have mines, so the first click always opens an opening.
+     * 
+     * @param coordinateGrid 2d array of MineCoordinate objects, without mines if placement is deferred (see MineFieldFactory.createEmptyField)
+     * @param mines number of mines in game
+     * @param deferMines place the mines on the first reveal?
+     */
+    public MineLogic(MineCoordinate[][] coordinateGrid, int mines, boolean deferMines) {
+        this(coordinateGrid, mines, deferMines, Topology.rectangle(coordinateGrid.length, coordinateGrid[0].length));
+    }
+
+    /**
+     * Set up game on a board of any topology
+     * 
+     * @param coordinateGrid 2d array of MineCoordinate objects, created for the topology (see MineFieldFactory.createMineField(Topology, int))
+     * @param mines number of mines in game
+     * @param deferMines place the mines on the first reveal?
+     * @param topology topology of board
+     * @throws IllegalArgumentException if placement is deferred and the mines don't leave the first revealed tile free
+     */
+    public MineLogic(MineCoordinate[][] coordinateGrid, int mines, boolean deferMines, Topology topology) {
+        // checked here rather than on the first reveal, so a bad configuration fails when the game is created
+        int tileCount = coordinateGrid.length * coordinateGrid[0].length;
+        if (deferMines && (mines < 0 || mines >= tileCount)) {
+            throw new IllegalArgumentException("Board with " + tileCount + " tiles must have 0 to " + (tileCount - 1) + " mines, not " + mines);
+        }
         this.coordinateGrid = coordinateGrid;
+        this.topology = topology;
         this.mines = mines;
+        mineCount = mines;
+        minesPlaced = !deferMines;
         flags = 0;
         firstMove = true;
-        unrevealed = coordinateGrid.length * coordinateGrid[0].length; // total size of game board
+        unrevealed = tileCount; // total size of game board
         winState = UNFINISHED;
+        changedTiles = new int[16];
+        changeCount = 0;
+        paddedGrid = topology.getPaddedGrid();
+        if (topology.getKind() != Topology.RECTANGLE) {
+            neighbourStart = topology.getNeighbourStart();
+            neighbours = topology.getNeighbours();
+        }
+        // chording skips revealed tiles, so a revealed sentinel keeps it inside the board
+        MineCoordinate border = new MineCoordinate(-1, -1);
+        border.setRevealed(true);
+        tiles = paddedGrid.pad(coordinateGrid, border);
+        countAdjacent();
+        // without mines the index would be useless, it is created once the mines are placed
+        if (minesPlaced) {
+            openings = MineFieldFactory.createOpeningIndex(coordinateGrid, topology);
+        }
+    }
+
+    /**
+     * Set up a game that is already in progress, e.g. one restored from a saved game.
+     * The numbers of flags and unrevealed tiles are counted from the grid.
+     * 
+     * @param coordinateGrid 2d array of MineCoordinate objects, with revealed and flagged tiles already set
+     * @param mineCount total number of mines in game
+     * @param winState win state of the game
+     */
+    public MineLogic(MineCoordinate[][] coordinateGrid, int mineCount, int winState) {
+        this(coordinateGrid, mineCount);
+        for (MineCoordinate[] column : coordinateGrid) {
+            for (MineCoordinate coord : column) {
+                if (coord.isFlagged()) {
+                    flags++;
+                    mines--;
+                }
+                if (coord.isRevealed()) {
+                    unrevealed--;
+                }
+            }
+        }
+        // the first move reveals at least one tile
+        firstMove = unrevealed == coordinateGrid.length * coordinateGrid[0].length;
+        this.winState = winState;
+    }
+
+    /**
+     * Set the publisher that receives the events of each move.
+     * Events are only collected while the publisher has subscribers.
+     * 
+     * @param eventPublisher publisher, or null to stop publishing events
+     */
+    public void setEventPublisher(GameEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Get the openings of the board: connected regions of empty tiles and their borders
+     * 
+     * @return opening index, or null if the mines haven't been placed yet
+     */
+    public OpeningIndex getOpenings() {
+        return openings;
+    }
+
+    /**
+     * Compute the difficulty statistics (3BV, openings, islands) of the board.
+     * The board can change on the first move, so compute them after it.
+     * 
+     * @return board statistics, or null if the mines haven't been placed yet
+     */
+    public BoardStats getBoardStats() {
+        if (!minesPlaced) {
+            return null;
+        }
+        return MineFieldFactory.computeStats(coordinateGrid, openings, topology);
     }
 
     /**
@@ -62,6 +189,48 @@ public class MineLogic {
         return mines;
     }
     
+    /**
+     * Get topology of board
+     * 
+     * @return topology
+     */
+    public Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Get board width
+     * 
+     * @return number of tiles in x-dimension
+     */
+    public int getWidth() {
+        return coordinateGrid.length;
+    }
+
+    /**
+     * Get board height
+     * 
+     * @return number of tiles in y-dimension
+     */
+    public int getHeight() {
+        return coordinateGrid[0].length;
+    }
+
+    /**
+     * Get what the player sees on a tile. Unlike the tile's content, this never tells where the hidden mines are.
+     * 
+     * @param x tile X-coordinate from left
+     * @param y tile Y-coordinate from top
+     * @return 0-8 for a revealed tile, MineConstants.TILE_HIDDEN or MineConstants.TILE_FLAGGED
+     */
+    public int getVisibleTile(int x, int y) {
+        MineCoordinate coord = coordinateGrid[x][y];
+        if (coord.isRevealed()) {
+            return coord.getContent();
+        }
+        return coord.isFlagged() ? MineConstants.TILE_FLAGGED : MineConstants.TILE_HIDDEN;
+    }
+
     /**
      * Is tile at (x,y) revealed?
      * @param x tile X-coordinate from left
@@ -89,8 +258,94 @@ public class MineLogic {
      * @param y Y coordinate of clicked tile from top
      */
     public void leftMouse(int x, int y) {
+        beginMove();
+        revealMove(x, y);
+        checkWinState(x, y);
+        endMove();
+    }
+
+    /**
+     * Handle a user right click on a tile
+     * @param x X coordinate of clicked tile from left
+     * @param y Y coordinate of clicked tile from top
+     */
+    public void rightMouse(int x, int y) {
+        beginMove();
+        flagMove(x, y);
+        checkWinState(x, y);
+        endMove();
+    }
+    
+    /**
+     * Handle a user double-click on a tile
+     * This will reveal all non-flagged tiles adjacent to the double-clicked tile, if the number of adjacent mines equals the number of adjacent flags
+     * 
+     * @param x X coordinate of clicked tile from left
+     * @param y Y coordinate of clicked tile from top
+     */
+    public void doubleClick(int x, int y) {
+        beginMove();
+        chordMove(x, y);
+        checkWinState(x, y);
+        endMove();
+    }
+
+    /**
+     * Apply a batch of moves as if they were one move: the change log lists the tiles changed by all of them,
+     * one event batch is published, and the win state is checked once at the end.
+     * Moves after one that loses the game are ignored.
+     * 
+     * @param moves moves to apply
+     * @throws IllegalArgumentException if a move has an unknown type or a tile outside the board; no move is applied then
+     */
+    public void applyMoves(MoveBatch moves) {
+        // check the whole batch first, so an invalid move can't leave it half applied
+        int width = getWidth();
+        int height = getHeight();
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.getType(i) < MoveBatch.REVEAL || moves.getType(i) > MoveBatch.CHORD) {
+                throw new IllegalArgumentException("Unknown move type " + moves.getType(i));
+            }
+            if (moves.getX(i) < 0 || moves.getX(i) >= width || moves.getY(i) < 0 || moves.getY(i) >= height) {
+                throw new IllegalArgumentException("Tile (" + moves.getX(i) + "," + moves.getY(i) + ") is outside the board");
+            }
+        }
+        beginMove();
+        for (int i = 0; i < moves.size() && winState == UNFINISHED; i++) {
+            int x = moves.getX(i);
+            int y = moves.getY(i);
+            switch (moves.getType(i)) {
+                case MoveBatch.REVEAL:
+                    revealMove(x, y);
+                    break;
+                case MoveBatch.FLAG:
+                    flagMove(x, y);
+                    break;
+                case MoveBatch.CHORD:
+                    chordMove(x, y);
+                    break;
+            }
+        }
+        if (moves.size() > 0) {
+            checkWinState(moves.getX(moves.size() - 1), moves.getY(moves.size() - 1));
+        }
+        endMove();
+    }
+
+    /**
+     * Reveal a tile as a move. On the first move, the mines are placed or moved so the tile isn't a mine.
+     * 
+     * @param x X coordinate of tile from left
+     * @param y Y coordinate of tile from top
+     */
+    private void revealMove(int x, int y) {
+        // with deferred placement, place the mines around the first revealed tile
+        if (!minesPlaced) {
+            MineFieldFactory.placeMines(coordinateGrid, mineCount, x, y, topology);
+            openings = MineFieldFactory.createOpeningIndex(coordinateGrid, topology);
+            minesPlaced = true;
         // if this is the first move and user just clicked on a mine, move mine to new tile first before continuing
-        if (coordinateGrid[x][y].isMine() && firstMove) {
+        } else if (coordinateGrid[x][y].isMine() && firstMove) {
             moveMine(x, y);
         }
         firstMove = false;
@@ -98,15 +353,15 @@ public class MineLogic {
         if (!coordinateGrid[x][y].isRevealed()) {
             reveal(x, y);
         }
-        checkWinState();
     }
 
     /**
-     * Handle a user right click on a tile
-     * @param x X coordinate of clicked tile from left
-     * @param y Y coordinate of clicked tile from top
+     * Toggle the flag of a tile as a move
+     * 
+     * @param x X coordinate of tile from left
+     * @param y Y coordinate of tile from top
      */
-    public void rightMouse(int x, int y) {
+    private void flagMove(int x, int y) {
         MineCoordinate coord = coordinateGrid[x][y];
         
         // abort, if tile has already been revealed
@@ -118,47 +373,53 @@ public class MineLogic {
             coord.setFlagged(false);
             flags--;
             mines++;
+            updateNeighbours(adjacentFlags, paddedGrid.index(x, y), -1);
+            addChange(x, y);
+            addEvent(GameEventBatch.FLAG_TOGGLED, x, y, 0);
         // set flagged if the tile has not been revealed and there are still unflagged mines
         } else if (!coord.isRevealed() && mines > 0) {
             coord.setFlagged(true);
             mines--;
             flags++;
+            updateNeighbours(adjacentFlags, paddedGrid.index(x, y), 1);
+            addChange(x, y);
+            addEvent(GameEventBatch.FLAG_TOGGLED, x, y, 1);
         }
-        checkWinState();
     }
-    
+
     /**
-     * Handle a user double-click on a tile
-     * This will reveal all non-flagged tiles adjacent to the double-clicked tile, if the number of adjacent mines equals the number of adjacent flags
+     * Chord a tile as a move: reveal its unflagged neighbours if it has as many adjacent flags as adjacent mines
      * 
-     * @param x X coordinate of clicked tile from left
-     * @param y Y coordinate of clicked tile from top
+     * @param x X coordinate of tile from left
+     * @param y Y coordinate of tile from top
      */
-    public void doubleClick(int x, int y) {
+    private void chordMove(int x, int y) {
         // does the clicked coordinate
         // -have adjacent mines
         // -have an equal number of adjacent flags and adjacent mines
-        if (coordinateGrid[x][y].getContent() > 0
-            && coordinateGrid[x][y].getContent() == getAdjacentFlags(coordinateGrid, x, y)) {
-            // iterate through a 3x3 box centered on the coordinate
-            for (int i = x - 1; i <= x + 1; i++) {
-                for (int j = y - 1; j <= y + 1; j++) {
-                    // jump over coordinates that are out of bounds for coordinateGrid
-                    if (i < 0 || i >= coordinateGrid.length
-                        || j < 0 || j >= coordinateGrid[i].length) {
-                        continue;
-                    }
-                    // jump over coordinate itself
-                    if (i == x && j == y) {
-                        continue;
-                    }
-                    // if coordinate passed previous tests and is not flagged, reveal it
-                    if (!coordinateGrid[i][j].isFlagged()) {
-                        reveal(i, j);
-                    }
+        if (canChord(x, y)) {
+            int tile = paddedGrid.index(x, y);
+            // iterate through the neighbours; the border sentinel is revealed, so it is skipped like revealed tiles
+            if (neighbourStart == null) {
+                for (int offset : paddedGrid.getOffsets()) {
+                    revealUnflagged(tiles[tile + offset]);
+                }
+            } else {
+                for (int n = neighbourStart[tile]; n < neighbourStart[tile + 1]; n++) {
+                    revealUnflagged(tiles[neighbours[n]]);
                 }
             }
-            checkWinState();
+        }
+    }
+
+    /**
+     * Reveal a neighbour of a chorded tile, unless it is flagged or already revealed
+     * 
+     * @param neighbour tile to reveal
+     */
+    private void revealUnflagged(MineCoordinate neighbour) {
+        if (!neighbour.isFlagged() && !neighbour.isRevealed()) {
+            reveal(neighbour.getX(), neighbour.getY());
         }
     }
 
@@ -179,48 +440,132 @@ public class MineLogic {
             coord.setFlagged(false);
             flags--;
             mines++;
+            updateNeighbours(adjacentFlags, paddedGrid.index(x, y), -1);
+            addChange(x, y);
+            addEvent(GameEventBatch.FLAG_TOGGLED, x, y, 0);
         }
         // decide action based on coordinate's content
         switch (coord.getContent()) {
             // if tile is mine, game is lost
             case MineConstants.MINE:
                 winState = LOST;
+                addEvent(GameEventBatch.GAME_LOST, x, y, 0);
                 break;
-            // if tile is empty, reveal it, then reveal all surrounding tiles
+            // if tile is empty, reveal its whole opening
             case MineConstants.EMPTY:
-                coord.setRevealed(true);
-                unrevealed--;
-                cascadeEmptyTiles( x, y);
+                revealOpening(x, y);
                 break;
             // otherwise, reveal tile
             default:
                 coord.setRevealed(true);
                 unrevealed--;
+                updateNeighbours(adjacentUnrevealed, paddedGrid.index(x, y), -1);
+                addChange(x, y);
+                addEvent(GameEventBatch.TILE_REVEALED, x, y, coord.getContent());
         }
     }
     
     /**
      * Handle player revealing empty tile.
-     * If empty tile is revealed, all surrounding tiles are also revealed. If one or more of them is also empty, this process repeats until no more empty tiles are revealed.
+     * If empty tile is revealed, all surrounding tiles are also revealed. If one or more of them is also empty, this continues until no more empty tiles are revealed.
+     * The tiles revealed this way are the empty tile's opening, which is listed in the opening index, so they are revealed without searching.
+     * Openings of at least MineConstants.PARALLEL_CASCADE_SIZE tiles are revealed in parallel.
      * 
      * @param x X-coordinate of empty tile
      * @param y Y-coordinate of empty tile
      */
-    private void cascadeEmptyTiles(int x, int y) {
+    private void revealOpening(int x, int y) {
+        int unrevealedBefore = unrevealed;
+        int opening = openings.getOpening(x, y);
+        if (openings.getEnd(opening) - openings.getStart(opening) >= MineConstants.PARALLEL_CASCADE_SIZE) {
+            revealParallel(openings.getStart(opening), openings.getEnd(opening));
+            addEvent(GameEventBatch.CASCADE_COMPLETED, x, y, unrevealedBefore - unrevealed);
+            return;
+        }
+        for (int i = openings.getStart(opening); i < openings.getEnd(opening); i++) {
+            int tileX = openings.getX(i);
+            int tileY = openings.getY(i);
+            MineCoordinate tile = coordinateGrid[tileX][tileY];
+            // border tiles may already have been revealed
+            if (tile.isRevealed()) {
+                continue;
+            }
+            // flags inside an opening are removed, as the tile is known not to be a mine
+            if (tile.isFlagged()) {
+                tile.setFlagged(false);
+                flags--;
+                mines++;
+                updateNeighbours(adjacentFlags, paddedGrid.index(tileX, tileY), -1);
+                addChange(tileX, tileY);
+                addEvent(GameEventBatch.FLAG_TOGGLED, tileX, tileY, 0);
+            }
+            tile.setRevealed(true);
+            unrevealed--;
+            updateNeighbours(adjacentUnrevealed, paddedGrid.index(tileX, tileY), -1);
+            addChange(tileX, tileY);
+            addEvent(GameEventBatch.TILE_REVEALED, tileX, tileY, tile.getContent());
+        }
+        addEvent(GameEventBatch.CASCADE_COMPLETED, x, y, unrevealedBefore - unrevealed);
+    }
 
-        // iterate through 3x3 box centered on empty tile
-        for (int i = x - 1; i <= x + 1; i++) {
-            for (int j = y - 1; j <= y + 1; j++) {
-                // skip over coordinates that are out of bounds for coordinateGrid and the empty tile itself
-                if (i < 0 || i >= coordinateGrid.length
-                        || j < 0 || j >= coordinateGrid[i].length
-                        || (i == x && j == y)) {
+    /**
+     * Reveal a range of an opening's tiles in parallel. The range is split into chunks that fork-join workers reveal;
+     * an opening lists each tile once, so no two workers reveal the same tile, but neighbouring tiles share counts, which are updated atomically.
+     * Each chunk lists the tiles it changed in its own part of one array. The game's counters, change log and events are updated from those lists
+     * once all chunks are done, in the same order as a sequential reveal.
+     * 
+     * @param start first tile of range in the opening index
+     * @param end end of range in the opening index
+     */
+    private void revealParallel(int start, int end) {
+        int height = coordinateGrid[0].length;
+        int chunk = MineConstants.PARALLEL_CASCADE_CHUNK;
+        int chunks = (end - start + chunk - 1) / chunk;
+        int[] changed = new int[end - start]; // changed tiles of each chunk as x * height + y, or ~(x * height + y) if the tile's flag was removed too
+        int[] changedCount = new int[chunks];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int count = 0;
+            for (int i = start + c * chunk; i < Math.min(start + (c + 1) * chunk, end); i++) {
+                int tileX = openings.getX(i);
+                int tileY = openings.getY(i);
+                MineCoordinate tile = coordinateGrid[tileX][tileY];
+                // border tiles may already have been revealed
+                if (tile.isRevealed()) {
                     continue;
                 }
-                // if the coordinate has not already been revealed, reveal it
-                // if this coordinate is also empty, it will lead back to this method in a "chain reaction"
-                if (!coordinateGrid[i][j].isRevealed()) {
-                    reveal(i, j);
+                int code = tileX * height + tileY;
+                // flags inside an opening are removed, as the tile is known not to be a mine
+                if (tile.isFlagged()) {
+                    tile.setFlagged(false);
+                    updateNeighboursAtomic(adjacentFlags, paddedGrid.index(tileX, tileY), -1);
+                    code = ~code;
+                }
+                tile.setRevealed(true);
+                updateNeighboursAtomic(adjacentUnrevealed, paddedGrid.index(tileX, tileY), -1);
+                changed[c * chunk + count++] = code;
+            }
+            changedCount[c] = count;
+        });
+
+        // the stream has finished, so all of the workers' writes are visible here
+        for (int c = 0; c < chunks; c++) {
+            // a tile is listed twice if its flag was removed
+            if (changeCount + changedCount[c] * 2 > changedTiles.length) {
+                changedTiles = Arrays.copyOf(changedTiles, Math.max(changedTiles.length * 2, changeCount + changedCount[c] * 2));
+            }
+            for (int i = c * chunk; i < c * chunk + changedCount[c]; i++) {
+                int tile = changed[i];
+                if (tile < 0) {
+                    tile = ~tile;
+                    flags--;
+                    mines++;
+                    changedTiles[changeCount++] = tile;
+                    addEvent(GameEventBatch.FLAG_TOGGLED, tile / height, tile % height, 0);
+                }
+                unrevealed--;
+                changedTiles[changeCount++] = tile;
+                if (events != null) {
+                    addEvent(GameEventBatch.TILE_REVEALED, tile / height, tile % height, coordinateGrid[tile / height][tile % height].getContent());
                 }
             }
         }
@@ -251,11 +596,116 @@ public class MineLogic {
         coordinateGrid[x][y].setContent(MineConstants.EMPTY);
         
         // now that the mine has been moved, we must recalculate the adjacency information for the entire MineCoordinate grid
-        MineFieldFactory.setAdjacentMines(coordinateGrid);
+        MineFieldFactory.setAdjacentMines(coordinateGrid, topology);
+        openings = MineFieldFactory.createOpeningIndex(coordinateGrid, topology);
     }
     
     /**
-     * Get the number of adjacent flags for given coordinate
+     * Get the number of flags adjacent to a tile. The count is kept up to date on every move, so this is a single array read.
+     * 
+     * @param x X-coordinate for tile
+     * @param y Y-coordinate for tile
+     * @return number of flags adjacent to (x,y)
+     */
+    public int getAdjacentFlags(int x, int y) {
+        return adjacentFlags[paddedGrid.index(x, y)];
+    }
+
+    /**
+     * Get the number of unrevealed tiles adjacent to a tile, flagged tiles included
+     * 
+     * @param x X-coordinate for tile
+     * @param y Y-coordinate for tile
+     * @return number of unrevealed tiles adjacent to (x,y)
+     */
+    public int getAdjacentUnrevealed(int x, int y) {
+        return adjacentUnrevealed[paddedGrid.index(x, y)];
+    }
+
+    /**
+     * Is a revealed number satisfied, i.e. does it have as many adjacent flags as adjacent mines?
+     * 
+     * @param x X-coordinate for tile
+     * @param y Y-coordinate for tile
+     * @return is (x,y) a revealed number with as many adjacent flags as its number?
+     */
+    public boolean isSatisfied(int x, int y) {
+        MineCoordinate coord = coordinateGrid[x][y];
+        return coord.isRevealed() && coord.getContent() > 0 && coord.getContent() == getAdjacentFlags(x, y);
+    }
+
+    /**
+     * Would chording a tile reveal anything? It would if the tile's number is satisfied and it has unflagged unrevealed neighbours.
+     * 
+     * @param x X-coordinate for tile
+     * @param y Y-coordinate for tile
+     * @return would a double-click on (x,y) reveal tiles?
+     */
+    public boolean canChord(int x, int y) {
+        int tile = paddedGrid.index(x, y);
+        return isSatisfied(x, y) && adjacentUnrevealed[tile] > adjacentFlags[tile];
+    }
+
+    /**
+     * Count the adjacent flags and unrevealed tiles of every tile from the grid
+     */
+    private void countAdjacent() {
+        adjacentFlags = new int[paddedGrid.getSize()];
+        adjacentUnrevealed = new int[paddedGrid.getSize()];
+        for (int x = 0; x < coordinateGrid.length; x++) {
+            for (int y = 0; y < coordinateGrid[x].length; y++) {
+                if (coordinateGrid[x][y].isFlagged()) {
+                    updateNeighbours(adjacentFlags, paddedGrid.index(x, y), 1);
+                }
+                if (!coordinateGrid[x][y].isRevealed()) {
+                    updateNeighbours(adjacentUnrevealed, paddedGrid.index(x, y), 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add to a per-tile count of every neighbour of a tile.
+     * On a rectangle the counts of the border entries are updated too, but never read, so no bounds checks are needed.
+     * 
+     * @param counts counts in paddedGrid's layout
+     * @param tile index of tile whose neighbours are updated, in paddedGrid's layout
+     * @param delta amount to add
+     */
+    private void updateNeighbours(int[] counts, int tile, int delta) {
+        if (neighbourStart == null) {
+            for (int offset : paddedGrid.getOffsets()) {
+                counts[tile + offset] += delta;
+            }
+        } else {
+            for (int n = neighbourStart[tile]; n < neighbourStart[tile + 1]; n++) {
+                counts[neighbours[n]] += delta;
+            }
+        }
+    }
+
+    /**
+     * Add to a per-tile count of every neighbour of a tile atomically, for updates from several threads at once
+     * 
+     * @param counts counts in paddedGrid's layout
+     * @param tile index of tile whose neighbours are updated, in paddedGrid's layout
+     * @param delta amount to add
+     */
+    private void updateNeighboursAtomic(int[] counts, int tile, int delta) {
+        if (neighbourStart == null) {
+            for (int offset : paddedGrid.getOffsets()) {
+                COUNTS.getAndAdd(counts, tile + offset, delta);
+            }
+        } else {
+            for (int n = neighbourStart[tile]; n < neighbourStart[tile + 1]; n++) {
+                COUNTS.getAndAdd(counts, neighbours[n], delta);
+            }
+        }
+    }
+
+    /**
+     * Get the number of adjacent flags for given coordinate by counting them.
+     * MineLogic keeps these counts up to date itself, see getAdjacentFlags(x, y); this is for grids without a game.
      * 
      * @param mineField 2d array of MineCoordinates
      * @param x X-coordinate for tile
@@ -299,13 +749,92 @@ public class MineLogic {
     /**
      * Check if game has been won.
      * The game is won if all tiles but mines have been revealed, and every mine tile has been flagged
+     * 
+     * @param x X-coordinate of the tile of the current move
+     * @param y Y-coordinate of the tile of the current move
      */
-    private void checkWinState() {
-        if (unrevealed == flags && winState != LOST) {
+    private void checkWinState(int x, int y) {
+        if (unrevealed == flags && winState == UNFINISHED) {
             winState = WON;
+            addEvent(GameEventBatch.GAME_WON, x, y, 0);
         }
     }
     
+    /**
+     * Get number of tiles changed (revealed, flagged or unflagged) by the last move.
+     * A tile may be listed more than once, e.g. if a flag was removed before revealing it.
+     * 
+     * @return number of changed tiles
+     */
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Get X-coordinate of a tile changed by the last move
+     * 
+     * @param i index of change, 0 to getChangeCount() - 1
+     * @return X-coordinate of changed tile
+     */
+    public int getChangedX(int i) {
+        return changedTiles[i] / coordinateGrid[0].length;
+    }
+
+    /**
+     * Get Y-coordinate of a tile changed by the last move
+     * 
+     * @param i index of change, 0 to getChangeCount() - 1
+     * @return Y-coordinate of changed tile
+     */
+    public int getChangedY(int i) {
+        return changedTiles[i] % coordinateGrid[0].length;
+    }
+
+    /**
+     * Record a changed tile
+     * 
+     * @param x X-coordinate of tile
+     * @param y Y-coordinate of tile
+     */
+    private void addChange(int x, int y) {
+        if (changeCount == changedTiles.length) {
+            changedTiles = Arrays.copyOf(changedTiles, changeCount * 2);
+        }
+        changedTiles[changeCount++] = x * coordinateGrid[0].length + y;
+    }
+
+    /**
+     * Start a move: clear the change log and start collecting events, if anyone is listening
+     */
+    private void beginMove() {
+        changeCount = 0;
+        events = eventPublisher != null && eventPublisher.hasSubscribers() ? eventPublisher.newBatch() : null;
+    }
+
+    /**
+     * End a move: publish the events of the move. Publishing never waits for subscribers.
+     */
+    private void endMove() {
+        if (events != null) {
+            eventPublisher.publish(events);
+            events = null;
+        }
+    }
+
+    /**
+     * Record an event of the current move, if events are being collected
+     * 
+     * @param type event type, see GameEventBatch
+     * @param x X-coordinate of event's tile
+     * @param y Y-coordinate of event's tile
+     * @param value event value
+     */
+    private void addEvent(int type, int x, int y, int value) {
+        if (events != null) {
+            events.add(type, x, y, value);
+        }
+    }
+
     /**
      * Get the game's win state
      * 
@@ -0,0 +1,633 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * This class computes the mine probability of every hidden tile from what the player can see.
+ * Each revealed number is a constraint on its hidden neighbours. The solver first applies the constraints one at a time
+ * (a number whose mines are all flagged or found makes its other neighbours safe, a number with as many hidden neighbours
+ * as missing mines makes them all mines). The remaining frontier is split into independent components whose solutions are
+ * enumerated by backtracking, and the components are combined with the hidden tiles away from the frontier using the
+ * number of mines left. Flags are trusted to be mines.
+ *
+ * The solver has a time budget: when it runs out, components not yet enumerated get estimated probabilities.
+ * Estimates are kept strictly between 0 and 1, so only tiles deduced by applying the constraints count as certain.
+ * It also stops with a CancellationException if its thread is interrupted, so a stale computation can be cancelled.
+ * A solver works on a snapshot of the board and may run on any thread.
+ *
+ * @author Badi Moore
+ */
+public class MineSolver {
+
+    private static final int UNKNOWN = -1;
+    private static final int SAFE = 0;
+    private static final int MINE = 1;
+    private static final int CHECK_INTERVAL = 1024; // search steps between checks of the time budget and interruption
+    private static final int MAX_COMPONENT = 256; // largest component that is enumerated, larger ones are always estimated
+    private static final double MIN_ESTIMATE = 1e-9; // estimates are kept this far from 0 and 1, they are never certain
+
+    private final int width;
+    private final int height;
+    private final int[] tiles; // visible tiles by x * height + y: 0-8 revealed, MineConstants.TILE_HIDDEN or MineConstants.TILE_FLAGGED
+    private final int minesLeft; // mines not flagged
+    private long deadline; // System.nanoTime() at which the budget runs out
+    private int steps; // search steps since the last check
+    private boolean timedOut;
+
+    // state of one solve
+    private int[] known; // tiles known to be safe or mines, UNKNOWN for the others
+    private int[][] constraintVars; // frontier variables of each constraint
+    private int[] constraintTargets; // mines still missing around each constraint
+    private int[][] varConstraints; // constraints of each frontier variable
+    private int[] varTiles; // tile of each frontier variable
+
+    /**
+     * Create new MineSolver
+     *
+     * @param width number of tiles in x-dimension
+     * @param height number of tiles in y-dimension
+     * @param tiles visible tiles by x * height + y: 0-8 for revealed tiles, MineConstants.TILE_HIDDEN or MineConstants.TILE_FLAGGED
+     * @param minesLeft number of mines not flagged
+     */
+    public MineSolver(int width, int height, int[] tiles, int minesLeft) {
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+        this.minesLeft = minesLeft;
+    }
+
+    /**
+     * Create a solver for the current state of a game. Call this on the thread that plays the game.
+     *
+     * @param logic the game
+     * @return solver working on a snapshot of the game's board
+     */
+    public static MineSolver forGame(MineLogic logic) {
+        int width = logic.getWidth();
+        int height = logic.getHeight();
+        int[] tiles = new int[width * height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                tiles[x * height + y] = logic.getVisibleTile(x, y);
+            }
+        }
+        return new MineSolver(width, height, tiles, logic.getMines());
+    }
+
+    /**
+     * Compute the mine probabilities
+     *
+     * @param budgetNanos time budget in nanoseconds
+     * @return probabilities, exact if the solver finished within the budget
+     * @throws CancellationException if the thread was interrupted
+     */
+    public SolverResult solve(long budgetNanos) {
+        deadline = System.nanoTime() + budgetNanos;
+        steps = 0;
+        timedOut = false;
+
+        known = new int[tiles.length];
+        Arrays.fill(known, UNKNOWN);
+        ArrayList<int[]> constraints = createConstraints();
+        propagate(constraints);
+        createFrontier(constraints);
+
+        double[] probabilities = new double[tiles.length];
+        int knownMines = 0;
+        for (int tile = 0; tile < tiles.length; tile++) {
+            if (tiles[tile] != MineConstants.TILE_HIDDEN) {
+                probabilities[tile] = -1;
+            } else if (known[tile] != UNKNOWN) {
+                probabilities[tile] = known[tile];
+                knownMines += known[tile];
+            }
+        }
+        int remaining = Math.max(minesLeft - knownMines, 0);
+        int interior = 0; // hidden tiles that aren't known and aren't on the frontier
+        for (int tile = 0; tile < tiles.length; tile++) {
+            if (tiles[tile] == MineConstants.TILE_HIDDEN && known[tile] == UNKNOWN) {
+                interior++;
+            }
+        }
+        interior -= varTiles.length;
+
+        // enumerate each component
+        int[][] components = findComponents();
+        double[][] counts = new double[components.length][]; // solutions of each component by number of mines
+        double[][][] tileCounts = new double[components.length][][]; // solutions with a mine on each variable by number of mines
+        boolean complete = true;
+        for (int c = 0; c < components.length; c++) {
+            if (!timedOut && components[c].length <= MAX_COMPONENT) {
+                counts[c] = new double[Math.min(components[c].length, remaining) + 1];
+                tileCounts[c] = new double[components[c].length][counts[c].length];
+                if (!enumerate(components[c], remaining, counts[c], tileCounts[c]) || isEmpty(counts[c])) {
+                    counts[c] = null; // out of time, or no solution because of a wrong flag
+                }
+            }
+            complete &= counts[c] != null;
+        }
+
+        if (complete && combine(components, counts, tileCounts, remaining, interior, probabilities)) {
+            return new SolverResult(height, probabilities, true);
+        }
+        estimate(components, counts, tileCounts, remaining, interior, probabilities);
+        return new SolverResult(height, probabilities, false);
+    }
+
+    /**
+     * Create a constraint for each revealed number with hidden neighbours
+     *
+     * @return constraints as {target, tile, tile, ...}, target being the number minus the adjacent flags
+     */
+    private ArrayList<int[]> createConstraints() {
+        ArrayList<int[]> constraints = new ArrayList<>();
+        int[] neighbours = new int[8];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int number = tiles[x * height + y];
+                if (number < 1 || number > 8) {
+                    continue;
+                }
+                int hidden = 0;
+                int target = number;
+                for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, width - 1); i++) {
+                    for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, height - 1); j++) {
+                        int tile = tiles[i * height + j];
+                        if (tile == MineConstants.TILE_HIDDEN) {
+                            neighbours[hidden++] = i * height + j;
+                        } else if (tile == MineConstants.TILE_FLAGGED) {
+                            target--;
+                        }
+                    }
+                }
+                // constraints made impossible by wrong flags are ignored
+                if (hidden > 0 && target >= 0 && target <= hidden) {
+                    int[] constraint = new int[hidden + 1];
+                    constraint[0] = target;
+                    System.arraycopy(neighbours, 0, constraint, 1, hidden);
+                    constraints.add(constraint);
+                }
+            }
+        }
+        return constraints;
+    }
+
+    /**
+     * Apply the constraints one at a time until nothing more can be deduced
+     *
+     * @param constraints constraints from createConstraints
+     */
+    private void propagate(ArrayList<int[]> constraints) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int[] constraint : constraints) {
+                checkCancelled();
+                int unknown = 0;
+                int mines = 0;
+                for (int i = 1; i < constraint.length; i++) {
+                    if (known[constraint[i]] == UNKNOWN) {
+                        unknown++;
+                    } else {
+                        mines += known[constraint[i]];
+                    }
+                }
+                int missing = constraint[0] - mines;
+                if (unknown == 0 || (missing != 0 && missing != unknown)) {
+                    continue;
+                }
+                // either all unknown neighbours are safe or all are mines
+                for (int i = 1; i < constraint.length; i++) {
+                    if (known[constraint[i]] == UNKNOWN) {
+                        known[constraint[i]] = missing == 0 ? SAFE : MINE;
+                    }
+                }
+                changed = true;
+            }
+        }
+    }
+
+    /**
+     * Create the frontier: the unknown tiles next to numbers, and the constraints on them
+     *
+     * @param constraints constraints from createConstraints
+     */
+    private void createFrontier(ArrayList<int[]> constraints) {
+        int[] varIndex = new int[tiles.length];
+        Arrays.fill(varIndex, -1);
+        ArrayList<Integer> vars = new ArrayList<>();
+        ArrayList<int[]> frontierVars = new ArrayList<>();
+        ArrayList<Integer> targets = new ArrayList<>();
+        for (int[] constraint : constraints) {
+            int target = constraint[0];
+            int[] cVars = new int[constraint.length - 1];
+            int size = 0;
+            for (int i = 1; i < constraint.length; i++) {
+                int tile = constraint[i];
+                if (known[tile] == MINE) {
+                    target--;
+                } else if (known[tile] == UNKNOWN) {
+                    if (varIndex[tile] == -1) {
+                        varIndex[tile] = vars.size();
+                        vars.add(tile);
+                    }
+                    cVars[size++] = varIndex[tile];
+                }
+            }
+            if (size > 0) {
+                frontierVars.add(Arrays.copyOf(cVars, size));
+                targets.add(target);
+            }
+        }
+
+        constraintVars = frontierVars.toArray(new int[0][]);
+        constraintTargets = new int[targets.size()];
+        int[] constraintCount = new int[vars.size()];
+        for (int c = 0; c < constraintVars.length; c++) {
+            constraintTargets[c] = targets.get(c);
+            for (int var : constraintVars[c]) {
+                constraintCount[var]++;
+            }
+        }
+        varTiles = new int[vars.size()];
+        varConstraints = new int[vars.size()][];
+        for (int var = 0; var < varTiles.length; var++) {
+            varTiles[var] = vars.get(var);
+            varConstraints[var] = new int[constraintCount[var]];
+            constraintCount[var] = 0;
+        }
+        for (int c = 0; c < constraintVars.length; c++) {
+            for (int var : constraintVars[c]) {
+                varConstraints[var][constraintCount[var]++] = c;
+            }
+        }
+    }
+
+    /**
+     * Split the frontier into components: groups of variables linked by shared constraints.
+     * The variables of each component are in breadth-first order, so the backtracking search completes constraints early.
+     *
+     * @return variables of each component
+     */
+    private int[][] findComponents() {
+        boolean[] visited = new boolean[varTiles.length];
+        boolean[] constraintVisited = new boolean[constraintVars.length];
+        int[] queue = new int[varTiles.length];
+        ArrayList<int[]> components = new ArrayList<>();
+        for (int start = 0; start < varTiles.length; start++) {
+            if (visited[start]) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            visited[start] = true;
+            while (head < tail) {
+                int var = queue[head++];
+                for (int c : varConstraints[var]) {
+                    if (constraintVisited[c]) {
+                        continue;
+                    }
+                    constraintVisited[c] = true;
+                    for (int other : constraintVars[c]) {
+                        if (!visited[other]) {
+                            visited[other] = true;
+                            queue[tail++] = other;
+                        }
+                    }
+                }
+            }
+            components.add(Arrays.copyOf(queue, tail));
+        }
+        return components.toArray(new int[0][]);
+    }
+
+    /**
+     * Count the solutions of a component by backtracking
+     *
+     * @param order variables of the component in search order
+     * @param maxMines most mines the component may have
+     * @param counts number of solutions by number of mines, filled in
+     * @param tileCounts number of solutions with a mine on each variable (by position in order) by number of mines, filled in
+     * @return true if all solutions were counted, false if the time budget ran out
+     */
+    private boolean enumerate(int[] order, int maxMines, double[] counts, double[][] tileCounts) {
+        int[] assigned = new int[varTiles.length];
+        Arrays.fill(assigned, UNKNOWN);
+        int[] constraintMines = new int[constraintVars.length];
+        int[] constraintUnassigned = new int[constraintVars.length];
+        for (int c = 0; c < constraintVars.length; c++) {
+            constraintUnassigned[c] = constraintVars[c].length;
+        }
+        boolean finished = search(order, 0, 0, maxMines, assigned, constraintMines, constraintUnassigned, counts, tileCounts);
+
+        // scale the counts down so products of many components don't overflow; the scale cancels out in the probabilities
+        double max = 0;
+        for (double count : counts) {
+            max = Math.max(max, count);
+        }
+        if (max > 0) {
+            for (int k = 0; k < counts.length; k++) {
+                counts[k] /= max;
+                for (double[] varCounts : tileCounts) {
+                    varCounts[k] /= max;
+                }
+            }
+        }
+        return finished;
+    }
+
+    /**
+     * Assign the variable at the given depth both ways and search on
+     *
+     * @param order variables of the component in search order
+     * @param depth position of the variable to assign in order
+     * @param mines mines assigned so far
+     * @param maxMines most mines the component may have
+     * @param assigned assignment of each variable, UNKNOWN if not assigned
+     * @param constraintMines mines assigned around each constraint
+     * @param constraintUnassigned unassigned variables of each constraint
+     * @param counts number of solutions by number of mines
+     * @param tileCounts number of solutions with a mine on each variable by number of mines
+     * @return false if the time budget ran out
+     */
+    private boolean search(int[] order, int depth, int mines, int maxMines, int[] assigned, int[] constraintMines, int[] constraintUnassigned,
+            double[] counts, double[][] tileCounts) {
+        if (++steps == CHECK_INTERVAL) {
+            steps = 0;
+            checkCancelled();
+            if (System.nanoTime() > deadline) {
+                timedOut = true;
+                return false;
+            }
+        }
+        if (depth == order.length) {
+            counts[mines]++;
+            for (int i = 0; i < order.length; i++) {
+                if (assigned[order[i]] == MINE) {
+                    tileCounts[i][mines]++;
+                }
+            }
+            return true;
+        }
+        int var = order[depth];
+        for (int value = SAFE; value <= MINE; value++) {
+            if (mines + value > maxMines) {
+                break;
+            }
+            assigned[var] = value;
+            boolean feasible = true;
+            for (int c : varConstraints[var]) {
+                constraintMines[c] += value;
+                constraintUnassigned[c]--;
+                if (constraintMines[c] > constraintTargets[c] || constraintMines[c] + constraintUnassigned[c] < constraintTargets[c]) {
+                    feasible = false;
+                }
+            }
+            boolean finished = !feasible || search(order, depth + 1, mines + value, maxMines, assigned, constraintMines, constraintUnassigned, counts, tileCounts);
+            for (int c : varConstraints[var]) {
+                constraintMines[c] -= value;
+                constraintUnassigned[c]++;
+            }
+            assigned[var] = UNKNOWN;
+            if (!finished) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Combine the enumerated components into exact probabilities.
+     * A combination of component solutions with m mines in total leaves the other mines to the interior tiles,
+     * which can hold them in C(interior, remaining - m) ways; this is the weight of the combination.
+     *
+     * @param components variables of each component
+     * @param counts solutions of each component by number of mines
+     * @param tileCounts solutions with a mine on each variable by number of mines
+     * @param remaining mines not flagged or known
+     * @param interior number of hidden tiles away from the frontier
+     * @param probabilities probabilities of the tiles, filled in
+     * @return false if no combination fits the number of mines left
+     */
+    private boolean combine(int[][] components, double[][] counts, double[][][] tileCounts, int remaining, int interior, double[] probabilities) {
+        double[] total = {1};
+        for (double[] componentCounts : counts) {
+            total = convolve(total, componentCounts);
+        }
+        double[] weights = getWeights(total.length, remaining, interior);
+        double sum = 0;
+        double interiorMines = 0;
+        for (int m = 0; m < total.length; m++) {
+            sum += total[m] * weights[m];
+            interiorMines += total[m] * weights[m] * (remaining - m);
+        }
+        if (sum == 0) {
+            return false;
+        }
+
+        for (int c = 0; c < components.length; c++) {
+            checkCancelled();
+            // weight of each number of mines in this component, given all combinations of the other components
+            double[] others = {1};
+            for (int other = 0; other < components.length; other++) {
+                if (other != c) {
+                    others = convolve(others, counts[other]);
+                }
+            }
+            double[] factors = new double[counts[c].length];
+            for (int k = 0; k < factors.length; k++) {
+                for (int j = 0; j < others.length && k + j < weights.length; j++) {
+                    factors[k] += others[j] * weights[k + j];
+                }
+            }
+            double solutions = 0;
+            for (double count : counts[c]) {
+                solutions += count;
+            }
+            for (int i = 0; i < components[c].length; i++) {
+                double mineSolutions = 0;
+                double weighted = 0;
+                for (int k = 0; k < factors.length; k++) {
+                    mineSolutions += tileCounts[c][i][k];
+                    weighted += tileCounts[c][i][k] * factors[k];
+                }
+                // tiles that are a mine in none or all of the solutions are certain, regardless of rounding
+                double probability = mineSolutions == 0 ? 0 : mineSolutions == solutions ? 1 : Math.min(weighted / sum, 1);
+                probabilities[varTiles[components[c][i]]] = probability;
+            }
+        }
+        setInterior(probabilities, interior == 0 ? 0 : interiorMines / sum / interior);
+        return true;
+    }
+
+    /**
+     * Estimate probabilities after running out of time. Enumerated components use their unweighted solution counts,
+     * the other frontier tiles get the highest share of missing mines among their constraints,
+     * and the interior shares the mines not expected on the frontier. No estimate is 0 or 1: only the tiles in known are certain.
+     *
+     * @param components variables of each component
+     * @param counts solutions of each component by number of mines, null if not enumerated
+     * @param tileCounts solutions with a mine on each variable by number of mines
+     * @param remaining mines not flagged or known
+     * @param interior number of hidden tiles away from the frontier
+     * @param probabilities probabilities of the tiles, filled in
+     */
+    private void estimate(int[][] components, double[][] counts, double[][][] tileCounts, int remaining, int interior, double[] probabilities) {
+        double frontierMines = 0;
+        for (int c = 0; c < components.length; c++) {
+            for (int i = 0; i < components[c].length; i++) {
+                int var = components[c][i];
+                double probability = 0;
+                if (counts[c] != null) {
+                    double solutions = 0;
+                    double mineSolutions = 0;
+                    for (int k = 0; k < counts[c].length; k++) {
+                        solutions += counts[c][k];
+                        mineSolutions += tileCounts[c][i][k];
+                    }
+                    probability = mineSolutions / solutions;
+                } else {
+                    for (int constraint : varConstraints[var]) {
+                        probability = Math.max(probability, constraintTargets[constraint] / (double) constraintVars[constraint].length);
+                    }
+                }
+                probabilities[varTiles[var]] = uncertain(probability);
+                frontierMines += probability;
+            }
+        }
+        setInterior(probabilities, uncertain(interior == 0 ? 0 : (remaining - frontierMines) / interior));
+    }
+
+    /**
+     * Keep an estimated probability strictly between 0 and 1
+     *
+     * @param probability estimated probability
+     * @return probability clamped to [MIN_ESTIMATE, 1 - MIN_ESTIMATE]
+     */
+    private static double uncertain(double probability) {
+        return Math.min(Math.max(probability, MIN_ESTIMATE), 1 - MIN_ESTIMATE);
+    }
+
+    /**
+     * Set the probability of all hidden tiles that aren't on the frontier and aren't known yet
+     *
+     * @param probabilities probabilities of the tiles
+     * @param probability probability of each interior tile
+     */
+    private void setInterior(double[] probabilities, double probability) {
+        boolean[] frontier = new boolean[tiles.length];
+        for (int tile : varTiles) {
+            frontier[tile] = true;
+        }
+        for (int tile = 0; tile < tiles.length; tile++) {
+            if (tiles[tile] == MineConstants.TILE_HIDDEN && !frontier[tile] && known[tile] == UNKNOWN) {
+                probabilities[tile] = probability;
+            }
+        }
+    }
+
+    /**
+     * Get the relative number of ways to place the remaining mines in the interior, for each number of mines on the frontier.
+     * The binomial coefficients are computed as logarithms and scaled so that the largest weight is 1.
+     *
+     * @param size number of weights
+     * @param remaining mines not flagged or known
+     * @param interior number of hidden tiles away from the frontier
+     * @return weight by number of mines on the frontier
+     */
+    private static double[] getWeights(int size, int remaining, int interior) {
+        double[] logWeights = new double[size];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int m = 0; m < size; m++) {
+            int left = remaining - m;
+            logWeights[m] = left < 0 || left > interior ? Double.NEGATIVE_INFINITY : logChoose(interior, left);
+            max = Math.max(max, logWeights[m]);
+        }
+        double[] weights = new double[size];
+        for (int m = 0; m < size && max > Double.NEGATIVE_INFINITY; m++) {
+            weights[m] = Math.exp(logWeights[m] - max);
+        }
+        return weights;
+    }
+
+    /**
+     * Logarithm of a binomial coefficient
+     *
+     * @param n number of items
+     * @param k number of chosen items
+     * @return ln(C(n, k))
+     */
+    private static double logChoose(int n, int k) {
+        k = Math.min(k, n - k);
+        double result = 0;
+        for (int i = 1; i <= k; i++) {
+            result += Math.log(n - k + i) - Math.log(i);
+        }
+        return result;
+    }
+
+    /**
+     * Convolve two mine count distributions
+     *
+     * @param a first distribution
+     * @param b second distribution
+     * @return distribution of the sum
+     */
+    private static double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < b.length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Does a distribution have no solutions at all?
+     *
+     * @param counts solutions by number of mines
+     * @return are all counts zero?
+     */
+    private static boolean isEmpty(double[] counts) {
+        for (double count : counts) {
+            if (count > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stop if the solving thread has been interrupted
+     *
+     * @throws CancellationException if the thread was interrupted
+     */
+    private static void checkCancelled() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Solver cancelled");
+        }
+    }
+}
@@ -22,11 +22,19 @@ import java.awt.GridLayout;
 import java.awt.Point;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 /**
  * This is the main UI class for Minesweeper
+ * Moves are made on a game thread, so long moves never freeze the window. The game thread hands the changed tiles
+ * to the game's BoardPainter, which paints them a frame at a time, and then reports the new game state back to the event dispatch thread.
+ * Everything that reads or changes a running game's MineLogic or MineCoordinates, including the solver's board copies, runs on the game thread.
+ * The event dispatch thread only sees copies made there: the tile states painted by the BoardPainter and a GameState after each move.
  *
  * @author Badi Moore
  */
@@ -39,6 +47,9 @@ public class MineSweeper extends javax.swing.JFrame {
         testMode = test; // sets the testMode variable, which determines whether tile info is visible for all tiles at all times.
 
         fileHandler = new FileHandler(); // create new filehandler for reading/writing data
+        // file errors may be reported from the I/O thread, show them on the event dispatch thread
+        fileHandler.addErrorListener(message -> SwingUtilities.invokeLater(()
+                -> JOptionPane.showMessageDialog(this, message, "File error", JOptionPane.ERROR_MESSAGE)));
 
         initComponents();
         
@@ -52,35 +63,93 @@ public class MineSweeper extends javax.swing.JFrame {
 
         scoreHandler = new ScoreHandler(fileHandler); // create new scorehandler to keep track of high scores
 
+        // generate boards of the preset difficulties in the background, so new games start at once
+        boardBank = new BoardBank(MineConstants.BOARD_BANK_SIZE);
+        boardBank.prepare(BoardConfig.EASY);
+        boardBank.prepare(BoardConfig.MEDIUM);
+        boardBank.prepare(BoardConfig.EXPERT);
+
         difficulty = "easy"; // default difficulty at beginning
 
         getContentPane().setBackground(new java.awt.Color(250, 250, 250));
 
         // create and start new timer + feed it the timer JLabel
         timer = new MineTimer(jLabelTimer);
+        heatmap = new HeatmapOverlay(gameboard);
+        autoPlayer = new AutoPlayer(MineConstants.HINT_TIME_BUDGET);
+        eventPublisher = new GameEventPublisher();
+        timer.setEventPublisher(eventPublisher);
+        gameThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Minesweeper game");
+            thread.setDaemon(true);
+            return thread;
+        });
         new Thread(timer).start();
     }
 
+    /**
+     * Get the publisher of game events. Subscribers receive the events of every move of every game, and timer ticks.
+     *
+     * @return event publisher
+     */
+    public GameEventPublisher getEventPublisher() {
+        return eventPublisher;
+    }
+
+    /**
+     * Read and submit scores using a shared leaderboard server instead of the local score files
+     *
+     * @param address address of the leaderboard server, e.g. "http://localhost:8470"
+     */
+    public void useLeaderboard(String address) {
+        LeaderboardClient client = new LeaderboardClient(address);
+        fileHandler.runAsync(() -> scoreHandler.setLeaderboard(client));
+    }
+
+    /**
+     * Get the bank of boards generated in advance, e.g. to check its hit rate
+     *
+     * @return board bank
+     */
+    public BoardBank getBoardBank() {
+        return boardBank;
+    }
+
     /**
      * This method initializes and starts a new game of minesweeper.
      *
-     * @param xSize horizontal of game grid
-     * @param ySize vertical size of game grid
-     * @param mines number of mines
+     * @param config board configuration of the game
      */
-    private void startGame(int xSize, int ySize, int mines) {
+    private void startGame(BoardConfig config) {
+        int xSize = config.getWidth();
+        int ySize = config.getHeight();
+        int mines = config.getMines();
         // set the stop button to "happy face" and enable (button is disabled at start)
         jButtonStop.setText(":)");
         jButtonStop.setEnabled(true);
+        setTitle("Minesweeper"); // remove result of previous game from title
 
         gameboard.removeAll(); //empty out previous buttons from game area
         gameboard.repaint();
 
+        heatmap.clear(); // stop computing probabilities for the previous game
+        if (painter != null) {
+            painter.stop(); // moves of the previous game still running won't be painted
+        }
+
         // Create new game grid and start up game logic
-        coordinateGrid = MineFieldFactory.createMineField(xSize, ySize, mines);
-        mineLogic = new MineLogic(coordinateGrid, mines);
+        if (jCheckBoxMenuItemSafeStart.isSelected()) {
+            // the mines are placed on the first click, so nothing needs to be generated yet
+            coordinateGrid = MineFieldFactory.createEmptyField(xSize, ySize);
+            mineLogic = new MineLogic(coordinateGrid, mines, true);
+        } else {
+            // take a board generated in advance
+            coordinateGrid = boardBank.take(config);
+            mineLogic = new MineLogic(coordinateGrid, mines);
+        }
+        mineLogic.setEventPublisher(eventPublisher);
 
-        updateMineCounter();
+        updateMineCounter(mines);
 
         // setup layout for game buttons
         GridLayout layout = new GridLayout(ySize, xSize);
@@ -101,9 +170,11 @@ public class MineSweeper extends javax.swing.JFrame {
         ImageIcon flagIcon = fileHandler.loadIcon("/flag.png");
 
         // iterate through all game coordinates and create + initialize button for each tile
+        MineButton[] buttons = new MineButton[xSize * ySize]; // buttons by x * ySize + y, like the game's change log
         for (int y = 0; y < ySize; y++) {
             for (int x = 0; x < xSize; x++) {
                 MineButton button = new MineButton(coordinateGrid[x][y], mineIcon, flagIcon);
+                buttons[x * ySize + y] = button;
                 button.setFocusPainted(false); // prevents button text from being selected while clicking on button
                 addListener(button); // add button listener to handle clicks
                 gameboard.add(button);
@@ -116,34 +187,62 @@ public class MineSweeper extends javax.swing.JFrame {
         }
         gameboard.revalidate();
         this.revalidate();
+        painter = new BoardPainter(buttons, ySize, this::paintButton);
 
         timer.start(); // start counting time/updating timer label
     }
 
     /**
-     * Refresh the state of each button on game board
+     * Refresh the state of each button on game board. The tiles are copied on the game thread, after any moves still running.
      */
     public void refreshBoard() {
+        if (mineLogic == null) {
+            return;
+        }
+        MineLogic game = mineLogic;
+        BoardPainter gamePainter = painter;
+        gameThread.execute(() -> {
+            gamePainter.addAll(game);
+            showState(game, gamePainter);
+        });
+    }
 
-        // iterate through each button on gameboard and tell it to update
-        for (Component comp : gameboard.getComponents()) {
-            MineButton mb = (MineButton) comp;
-            mb.update();
+    /**
+     * Update a button to show its tile
+     *
+     * @param mb MineButton to update
+     */
+    private void paintButton(MineButton mb) {
+        mb.update();
 
-            // if program was launched in test mode, display coordinate content on button, so testers can see what's going on in game
-            if (testMode) {
-                addTestText(mb);
-            }
+        // if program was launched in test mode, display coordinate content on button, so testers can see what's going on in game
+        if (testMode) {
+            addTestText(mb);
         }
+    }
+
+    /**
+     * Show the state of the game after a move: update the mine counter and the probability overlay, and end the game if it has been won or lost
+     *
+     * @param state state of the current game, copied on the game thread
+     */
+    private void showGameState(GameState state) {
+        updateMineCounter(state.getMines());
 
-        updateMineCounter();
+        // shade the tiles by mine probability in the background
+        if (jCheckBoxMenuItemHeatmap.isSelected() && state.getWinState() == MineLogic.UNFINISHED) {
+            updateHeatmap(mineLogic);
+        }
 
-        // check if game has been won or lost
-        if (mineLogic.getWinState() == MineLogic.LOST) {
-            loseGame();
+        // check if game has been won or lost; the game ends only once
+        if (painter.isStopped()) {
+            return;
         }
-        if (mineLogic.getWinState() == MineLogic.WON) {
-            winGame();
+        if (state.getWinState() == MineLogic.LOST) {
+            loseGame(state);
+        }
+        if (state.getWinState() == MineLogic.WON) {
+            winGame(state);
         }
     }
 
@@ -181,19 +280,22 @@ public class MineSweeper extends javax.swing.JFrame {
                 if (!mb.isEnabled()) {
                     return;
                 }
+                MoveBatch moves = new MoveBatch();
                 // left click
                 if (me.getButton() == MouseEvent.BUTTON1) {
-                    mineLogic.leftMouse(mb.getXIndex(), mb.getYIndex());
+                    moves.add(MoveBatch.REVEAL, mb.getXIndex(), mb.getYIndex());
                 }
                 // right click
                 if (me.getButton() == MouseEvent.BUTTON3) {
-                    mineLogic.rightMouse(mb.getXIndex(), mb.getYIndex());
+                    moves.add(MoveBatch.FLAG, mb.getXIndex(), mb.getYIndex());
                 }
                 // double-click
                 if (me.getClickCount() == 2) {
-                    mineLogic.doubleClick(mb.getXIndex(), mb.getYIndex());
+                    moves.add(MoveBatch.CHORD, mb.getXIndex(), mb.getYIndex());
+                }
+                if (moves.size() > 0) {
+                    playMoves(moves); // the changed tiles are painted once the game thread has made the moves
                 }
-                refreshBoard(); // after mouse clicked and logic handled changes in game, refresh the game board to reflect changed game state
             }
 
             @Override
@@ -211,11 +313,84 @@ public class MineSweeper extends javax.swing.JFrame {
 
     }
 
+    /**
+     * Make moves in the current game on the game thread, then paint the changed tiles and show the new game state.
+     * The moves of one mouse press are made as one batch.
+     *
+     * @param moves moves to make
+     */
+    private void playMoves(MoveBatch moves) {
+        MineLogic game = mineLogic;
+        BoardPainter gamePainter = painter;
+        gameThread.execute(() -> {
+            // moves queued before the game ended are ignored
+            if (game.getWinState() != MineLogic.UNFINISHED) {
+                return;
+            }
+            game.applyMoves(moves);
+            showMove(game, gamePainter);
+        });
+    }
+
+    /**
+     * Hand the tiles changed by a game's last move to its painter and show the game's new state on the event dispatch thread.
+     * Call this on the game thread.
+     *
+     * @param game the game
+     * @param gamePainter the game's painter
+     */
+    private void showMove(MineLogic game, BoardPainter gamePainter) {
+        gamePainter.add(game);
+        showState(game, gamePainter);
+    }
+
+    /**
+     * Copy a game's state and show it on the event dispatch thread. Call this on the game thread.
+     *
+     * @param game the game
+     * @param gamePainter the game's painter
+     */
+    private void showState(MineLogic game, BoardPainter gamePainter) {
+        int winState = game.getWinState();
+        // the 3BV of the board after the first move, which may have moved a mine, is needed for the score
+        BoardStats stats = winState == MineLogic.WON ? game.getBoardStats() : null;
+        // the whole board is shown once the game has ended
+        int[] tiles = winState == MineLogic.UNFINISHED ? null : gamePainter.copyTiles(winState == MineLogic.LOST);
+        GameState state = new GameState(winState, game.getMines(), stats, tiles, game.getHeight());
+        SwingUtilities.invokeLater(() -> {
+            // a new game may have been started meanwhile
+            if (game == mineLogic) {
+                showGameState(state);
+            }
+        });
+    }
+
+    /**
+     * Copy a game's board on the game thread and start computing its mine probabilities
+     *
+     * @param game the game
+     */
+    private void updateHeatmap(MineLogic game) {
+        gameThread.execute(() -> {
+            if (game.getWinState() != MineLogic.UNFINISHED) {
+                return;
+            }
+            MineSolver solver = MineSolver.forGame(game);
+            SwingUtilities.invokeLater(() -> {
+                // the painter of the current game is stopped once the game has ended
+                if (game == mineLogic && !painter.isStopped() && jCheckBoxMenuItemHeatmap.isSelected()) {
+                    heatmap.update(solver);
+                }
+            });
+        });
+    }
+
     /**
      * Update current mine value to mine counter
+     *
+     * @param mines number of unflagged mines
      */
-    public void updateMineCounter() {
-        int mines = mineLogic.getMines(); // get current mine value from logic
+    public void updateMineCounter(int mines) {
 
         // add 0 to beginning of string, if value is <10, e.g. 01, 02, ...
         String newValue = "";
@@ -228,45 +403,77 @@ public class MineSweeper extends javax.swing.JFrame {
 
     /**
      * Lost game procedure
+     *
+     * @param state state of the lost game, its tiles show the locations of all mines
      */
-    private void loseGame() {
+    private void loseGame(GameState state) {
         timer.stop(); // stop counting time
-
-        // Go through each MineCoordinate in grid
-        // if coordinate is mine, set it as revealed
-        // this will reveal locations of all mines on board if game lost.
-        for (MineCoordinate[] mcColumn : coordinateGrid) {
-            for (MineCoordinate mc : mcColumn) {
-                if (mc.isMine()) {
-                    mc.setRevealed(true);
-                }
-            }
-        }
         jButtonStop.setText(":("); // set sad smiley face on stop button
-        endGame(); // general end game procedure
+        endGame(state); // general end game procedure
     }
 
-    private void winGame() {
+    /**
+     * Won game procedure
+     *
+     * @param state state of the won game
+     */
+    private void winGame(GameState state) {
         timer.stop(); // stop counting time
 
-        // if score is high score, open frame to ask player to enter name
-        if (scoreHandler.isHighScore(difficulty, timer.getTime())) {
-            NameEntryFrame name = new NameEntryFrame(timer.getTime(), difficulty, scoreHandler);
-            name.setLocationRelativeTo(this); // open new frame on top of this one
-            name.setVisible(true);
-        }
+        // the scores are read and written on the I/O thread, the results are shown on the event dispatch thread once they are ready
+        // other running games may have saved scores, they are taken into account
+        String wonDifficulty = difficulty;
+        double time = timer.getTime();
+        int bbbv = state.getBoardStats().getBbbv();
+        scoreHandler.recordGameAsync(wonDifficulty, time).thenAcceptAsync(fasterThan -> {
+            // compare time to all previously won games and show the result in the title
+            if (fasterThan > 0) {
+                setTitle("Minesweeper - faster than " + Math.round(fasterThan * 100) + "% of your games");
+            }
+        }, SwingUtilities::invokeLater);
+        scoreHandler.isHighScoreAsync(wonDifficulty, time).thenAcceptAsync(highScore -> {
+            // if score is high score, open frame to ask player to enter name
+            if (highScore) {
+                NameEntryFrame name = new NameEntryFrame(time, bbbv, wonDifficulty, scoreHandler);
+                name.setLocationRelativeTo(this); // open new frame on top of this one
+                name.setVisible(true);
+            }
+        }, SwingUtilities::invokeLater);
         jButtonStop.setText(":D"); // set stop button text to big grin face
-        endGame(); // general end game procedure
+        endGame(state); // general end game procedure
+    }
+
+    /**
+     * Play one batch of certain moves and schedule the next batch, until no certain moves are left. Call this on the game thread.
+     * Each batch is painted as one move, and the batches run as separate tasks, so the player's clicks can get in between.
+     *
+     * @param game the game being solved
+     * @param gamePainter the game's painter, solving stops once it has been stopped by a new game
+     */
+    private void autoSolve(MineLogic game, BoardPainter gamePainter) {
+        if (gamePainter.isStopped() || game.getWinState() != MineLogic.UNFINISHED) {
+            return;
+        }
+        int moves = autoPlayer.playSafeMoves(game);
+        if (moves > 0) {
+            showMove(game, gamePainter);
+            gameThread.execute(() -> autoSolve(game, gamePainter));
+        }
     }
 
     /**
      * Final wrap up for ending game
+     *
+     * @param state state of the ended game, with the states of all tiles
      */
-    private void endGame() {
+    private void endGame(GameState state) {
+        heatmap.clear(); // probabilities mean nothing once the game is over
+        painter.stop(); // all buttons are updated below
 
         // go through each button on game board, update the visuals and disable button
         for (Component comp : gameboard.getComponents()) {
             MineButton mb = (MineButton) comp;
+            mb.setState(state.getTile(mb.getXIndex(), mb.getYIndex()));
             mb.update();
             mb.setEnabled(false);
         }
@@ -278,16 +485,9 @@ public class MineSweeper extends javax.swing.JFrame {
      * @param gameType new game difficulty
      */
     private void newGame(String gameType) {
-        switch (gameType) {
-            case "easy":
-                startGame(MineConstants.EASY_WIDTH, MineConstants.EASY_HEIGHT, MineConstants.EASY_MINES);
-                break;
-            case "medium":
-                startGame(MineConstants.MEDIUM_WIDTH, MineConstants.MEDIUM_HEIGHT, MineConstants.MEDIUM_MINES);
-                break;
-            case "expert":
-                startGame(MineConstants.EXPERT_WIDTH, MineConstants.EXPERT_HEIGHT, MineConstants.EXPERT_MINES);
-                break;
+        BoardConfig config = BoardConfig.forDifficulty(gameType);
+        if (config != null) {
+            startGame(config);
         }
     }
 
@@ -376,6 +576,11 @@ public class MineSweeper extends javax.swing.JFrame {
         jMenuItemMedium = new javax.swing.JMenuItem();
         jMenuItemExpert = new javax.swing.JMenuItem();
         jSeparator1 = new javax.swing.JPopupMenu.Separator();
+        jCheckBoxMenuItemSafeStart = new javax.swing.JCheckBoxMenuItem();
+        jCheckBoxMenuItemHeatmap = new javax.swing.JCheckBoxMenuItem();
+        jMenuItemHint = new javax.swing.JMenuItem();
+        jMenuItemAutoSolve = new javax.swing.JMenuItem();
+        jSeparator2 = new javax.swing.JPopupMenu.Separator();
         jMenuItemExit = new javax.swing.JMenuItem();
         jMenuInfo = new javax.swing.JMenu();
         jMenuItemHiscores = new javax.swing.JMenuItem();
@@ -531,6 +736,35 @@ public class MineSweeper extends javax.swing.JFrame {
         jMenu1.add(jMenuItemExpert);
         jMenu1.add(jSeparator1);
 
+        jCheckBoxMenuItemSafeStart.setText("Safe first click");
+        jCheckBoxMenuItemSafeStart.setToolTipText("Place the mines on the first click, so that it always opens an empty area");
+        jMenu1.add(jCheckBoxMenuItemSafeStart);
+
+        jCheckBoxMenuItemHeatmap.setText("Show mine probabilities");
+        jCheckBoxMenuItemHeatmap.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jCheckBoxMenuItemHeatmapActionPerformed(evt);
+            }
+        });
+        jMenu1.add(jCheckBoxMenuItemHeatmap);
+
+        jMenuItemHint.setText("Hint");
+        jMenuItemHint.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuItemHintActionPerformed(evt);
+            }
+        });
+        jMenu1.add(jMenuItemHint);
+
+        jMenuItemAutoSolve.setText("Auto-solve safe tiles");
+        jMenuItemAutoSolve.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jMenuItemAutoSolveActionPerformed(evt);
+            }
+        });
+        jMenu1.add(jMenuItemAutoSolve);
+        jMenu1.add(jSeparator2);
+
         jMenuItemExit.setText("Exit");
         jMenuItemExit.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
@@ -601,21 +835,59 @@ public class MineSweeper extends javax.swing.JFrame {
         newGame(difficulty);
     }//GEN-LAST:event_jMenuItemExpertActionPerformed
 
+    private void jCheckBoxMenuItemHeatmapActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jCheckBoxMenuItemHeatmapActionPerformed
+        // show or hide the probability overlay of a running game
+        if (!jCheckBoxMenuItemHeatmap.isSelected()) {
+            heatmap.clear();
+        } else if (mineLogic != null) {
+            updateHeatmap(mineLogic); // nothing is shown if the game has ended
+        }
+    }//GEN-LAST:event_jCheckBoxMenuItemHeatmapActionPerformed
+
+    private void jMenuItemHintActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuItemHintActionPerformed
+        // let the solver make one move in the running game
+        if (mineLogic != null) {
+            MineLogic game = mineLogic;
+            BoardPainter gamePainter = painter;
+            gameThread.execute(() -> {
+                if (game.getWinState() == MineLogic.UNFINISHED && autoPlayer.hint(game)) {
+                    showMove(game, gamePainter);
+                }
+            });
+        }
+    }//GEN-LAST:event_jMenuItemHintActionPerformed
+
+    private void jMenuItemAutoSolveActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuItemAutoSolveActionPerformed
+        if (mineLogic != null) {
+            MineLogic game = mineLogic;
+            BoardPainter gamePainter = painter;
+            gameThread.execute(() -> autoSolve(game, gamePainter));
+        }
+    }//GEN-LAST:event_jMenuItemAutoSolveActionPerformed
+
     private void jMenuItemExitActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuItemExitActionPerformed
         System.exit(0);
     }//GEN-LAST:event_jMenuItemExitActionPerformed
 
     private void jButtonStopActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButtonStopActionPerformed
         // stop button functionality
-        // if game is running and not finished, lose game
-        if (mineLogic.getWinState() == MineLogic.UNFINISHED) {
-            mineLogic.setWinState(MineLogic.LOST);
-            loseGame();
-
-        // if game is either won or lost, start new game at same difficulty
-        } else if (mineLogic.getWinState() == MineLogic.LOST || mineLogic.getWinState() == MineLogic.WON) {
-            newGame(difficulty);
-        }
+        // the game is checked on the game thread, after any moves still running
+        MineLogic game = mineLogic;
+        BoardPainter gamePainter = painter;
+        gameThread.execute(() -> {
+            if (game.getWinState() == MineLogic.UNFINISHED) {
+                // if game is running and not finished, lose game
+                game.setWinState(MineLogic.LOST);
+                showState(game, gamePainter);
+            } else {
+                // if game is either won or lost, start new game at same difficulty
+                SwingUtilities.invokeLater(() -> {
+                    if (game == mineLogic) {
+                        newGame(difficulty);
+                    }
+                });
+            }
+        });
     }//GEN-LAST:event_jButtonStopActionPerformed
 
     private void jMenuItemRulesActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuItemRulesActionPerformed
@@ -633,10 +905,12 @@ public class MineSweeper extends javax.swing.JFrame {
             }
         }
 
-        // display high score window
-        HighScoreFrame score = new HighScoreFrame(scoreHandler);
-        score.setLocationRelativeTo(this);
-        score.setVisible(true);
+        // display high score window once the scores are loaded, with scores saved by other running games included
+        scoreHandler.loadAsync("easy", "medium", "expert").thenRunAsync(() -> {
+            HighScoreFrame score = new HighScoreFrame(scoreHandler);
+            score.setLocationRelativeTo(this);
+            score.setVisible(true);
+        }, SwingUtilities::invokeLater);
     }//GEN-LAST:event_jMenuItemHiscoresActionPerformed
 
     private void jMenuAboutActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuAboutActionPerformed
@@ -680,12 +954,21 @@ public class MineSweeper extends javax.swing.JFrame {
                 // check if "-test" added as launch parameter
                 // if added, enable test mode (tile contents are displayed at all times during game)
                 boolean test = false;
+                // check if "-leaderboard=<address>" added as launch parameter
+                // if added, scores are read from and submitted to the leaderboard server at the address
+                String leaderboard = null;
                 for (String arg : args) {
                     if (arg.equals("-test")) {
                         test = true;
+                    } else if (arg.startsWith("-leaderboard=")) {
+                        leaderboard = arg.substring("-leaderboard=".length());
                     }
                 }
-                new MineSweeper(test).setVisible(true);
+                MineSweeper game = new MineSweeper(test);
+                if (leaderboard != null) {
+                    game.useLeaderboard(leaderboard);
+                }
+                game.setVisible(true);
             }
         });
 
@@ -694,6 +977,8 @@ public class MineSweeper extends javax.swing.JFrame {
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JPanel gameboard;
     private javax.swing.JButton jButtonStop;
+    private javax.swing.JCheckBoxMenuItem jCheckBoxMenuItemHeatmap;
+    private javax.swing.JCheckBoxMenuItem jCheckBoxMenuItemSafeStart;
     private javax.swing.JLabel jLabelMines;
     private javax.swing.JLabel jLabelMinesIcon;
     private javax.swing.JLabel jLabelTimeIcon;
@@ -702,18 +987,27 @@ public class MineSweeper extends javax.swing.JFrame {
     private javax.swing.JMenuItem jMenuAbout;
     private javax.swing.JMenuBar jMenuBar1;
     private javax.swing.JMenu jMenuInfo;
+    private javax.swing.JMenuItem jMenuItemAutoSolve;
     private javax.swing.JMenuItem jMenuItemEasy;
     private javax.swing.JMenuItem jMenuItemExit;
     private javax.swing.JMenuItem jMenuItemExpert;
+    private javax.swing.JMenuItem jMenuItemHint;
     private javax.swing.JMenuItem jMenuItemHiscores;
     private javax.swing.JMenuItem jMenuItemMedium;
     private javax.swing.JMenuItem jMenuItemRules;
     private javax.swing.JPopupMenu.Separator jSeparator1;
+    private javax.swing.JPopupMenu.Separator jSeparator2;
     // End of variables declaration//GEN-END:variables
 
     private MineLogic mineLogic; // handles game logic
     private MineCoordinate[][] coordinateGrid; // grid of MineCoordinates that makes up the game area
     private MineTimer timer;
+    private ExecutorService gameThread; // makes the moves of all games
+    private BoardPainter painter; // paints the current game's changed tiles
+    private BoardBank boardBank; // boards generated in advance
+    private HeatmapOverlay heatmap; // shades tiles by mine probability
+    private AutoPlayer autoPlayer; // makes hint and auto-solve moves
+    private GameEventPublisher eventPublisher; // publishes the events of the games played in this window
     private ScoreHandler scoreHandler; // keeps track of high scores
     private FileHandler fileHandler; // handles file I/O
     private String difficulty; // difficulty of current game
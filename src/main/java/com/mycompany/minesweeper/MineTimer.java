@@ -31,6 +31,7 @@ public class MineTimer implements Runnable {
     private long startTime; // time at timer start
     private double currentSeconds; // currently elapsed seconds
     private boolean running; // is timer running or not?
+    private volatile GameEventPublisher eventPublisher; // receives a TIMER_TICK event on every increment, or null
 
     /**
      * Create new MineTimer
@@ -54,6 +55,10 @@ public class MineTimer implements Runnable {
                 currentSeconds += 0.1;
                 currentSeconds = Math.round(currentSeconds * 10) / 10.0; // round time to one decimal
                 label.setText(String.valueOf(currentSeconds));
+                GameEventPublisher publisher = eventPublisher;
+                if (publisher != null) {
+                    publisher.tick((int) Math.round(currentSeconds * 10));
+                }
             }
 
             // put thread to sleep for 10ms
@@ -64,6 +69,15 @@ public class MineTimer implements Runnable {
             }
         }
     }
+    /**
+     * Set the publisher that receives a TIMER_TICK event every time the timer is incremented
+     * 
+     * @param eventPublisher publisher, or null to stop publishing ticks
+     */
+    public void setEventPublisher(GameEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
     /**
      * Get timer value
      * 
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * This class is a list of moves to be applied to a game at once with MineLogic.applyMoves,
+ * e.g. by bots, the auto-player or network clients. Moves are stored in primitive arrays, and a batch can be cleared and reused.
+ *
+ * @author Badi Moore
+ */
+public class MoveBatch {
+
+    // move types
+    public static final int REVEAL = 0; // left click
+    public static final int FLAG = 1; // right click
+    public static final int CHORD = 2; // double-click
+
+    private int[] types;
+    private int[] xs;
+    private int[] ys;
+    private int size;
+
+    /**
+     * Create new empty batch
+     */
+    public MoveBatch() {
+        types = new int[16];
+        xs = new int[16];
+        ys = new int[16];
+        size = 0;
+    }
+
+    /**
+     * Add a move
+     *
+     * @param type REVEAL, FLAG or CHORD
+     * @param x X-coordinate of tile from left
+     * @param y Y-coordinate of tile from top
+     */
+    public void add(int type, int x, int y) {
+        if (size == types.length) {
+            types = Arrays.copyOf(types, size * 2);
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        types[size] = type;
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    /**
+     * Remove all moves
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Get number of moves
+     *
+     * @return number of moves
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get type of a move
+     *
+     * @param i index of move
+     * @return REVEAL, FLAG or CHORD
+     */
+    public int getType(int i) {
+        return types[i];
+    }
+
+    /**
+     * Get X-coordinate of a move
+     *
+     * @param i index of move
+     * @return X-coordinate of tile
+     */
+    public int getX(int i) {
+        return xs[i];
+    }
+
+    /**
+     * Get Y-coordinate of a move
+     *
+     * @param i index of move
+     * @return Y-coordinate of tile
+     */
+    public int getY(int i) {
+        return ys[i];
+    }
+}
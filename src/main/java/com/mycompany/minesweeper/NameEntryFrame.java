@@ -29,10 +29,11 @@ public class NameEntryFrame extends javax.swing.JFrame {
     /**
      * Creates new form ScoreEntryFrame
      */
-    public NameEntryFrame(double score, String difficulty, ScoreHandler scoreHandler) {
+    public NameEntryFrame(double score, int bbbv, String difficulty, ScoreHandler scoreHandler) {
         initComponents();
         
         this.score = score;
+        this.bbbv = bbbv;
         this.difficulty = difficulty;
         this.scoreHandler = scoreHandler;
         
@@ -119,9 +120,8 @@ public class NameEntryFrame extends javax.swing.JFrame {
     }// </editor-fold>//GEN-END:initComponents
 
     private void jButtonSubmitActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButtonSubmitActionPerformed
-        // adds new score via scoreHandler and tells scoreHandler to write the scores to file
-        scoreHandler.addScore(jTextFieldName.getText(), score, difficulty);
-        scoreHandler.writeScores();
+        // adds new score and writes the scores to file on the I/O thread, so the window never waits for the score files
+        scoreHandler.addScoreAsync(jTextFieldName.getText(), score, bbbv, difficulty);
         close();
     }//GEN-LAST:event_jButtonSubmitActionPerformed
 
@@ -161,7 +161,7 @@ public class NameEntryFrame extends javax.swing.JFrame {
         /* Create and display the form */
         java.awt.EventQueue.invokeLater(new Runnable() {
             public void run() {
-                new NameEntryFrame(0, "", null).setVisible(true);
+                new NameEntryFrame(0, 0, "", null).setVisible(true);
             }
         });
     }
@@ -174,6 +174,7 @@ public class NameEntryFrame extends javax.swing.JFrame {
     // End of variables declaration//GEN-END:variables
 
     private double score;
+    private int bbbv; // 3BV of the won board
     private String difficulty;
     private ScoreHandler scoreHandler;
 }
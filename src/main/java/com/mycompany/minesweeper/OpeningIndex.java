@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+/**
+ * This class is an index of the openings of a board. An opening is a connected region of empty tiles
+ * (tiles with no adjacent mines, connected also diagonally) together with the numbered tiles bordering it.
+ * Revealing any empty tile reveals its whole opening, so the game can reveal it by walking one list.
+ * Tiles are identified by x * height + y, and each opening's tiles are stored in one shared array:
+ * first the empty tiles, then the border.
+ * The index is created by MineFieldFactory.createOpeningIndex.
+ *
+ * @author Badi Moore
+ */
+public class OpeningIndex {
+
+    private final int height;
+    private final int[] tileOpening; // opening number of each empty tile, -1 for other tiles
+    private final int[] openingStart; // index of each opening's first tile in openingTiles, with an extra entry for the end
+    private final int[] openingEmpty; // number of empty tiles in each opening
+    private final int[] openingTiles; // tiles of all openings, empty tiles first
+
+    /**
+     * Create new OpeningIndex
+     *
+     * @param height number of tiles in y-dimension
+     * @param tileOpening opening number of each tile, -1 if tile is not empty
+     * @param openingStart start of each opening in openingTiles, followed by the total number of entries
+     * @param openingEmpty number of empty tiles in each opening
+     * @param openingTiles tiles of all openings
+     */
+    public OpeningIndex(int height, int[] tileOpening, int[] openingStart, int[] openingEmpty, int[] openingTiles) {
+        this.height = height;
+        this.tileOpening = tileOpening;
+        this.openingStart = openingStart;
+        this.openingEmpty = openingEmpty;
+        this.openingTiles = openingTiles;
+    }
+
+    /**
+     * Get number of openings on the board
+     *
+     * @return number of openings
+     */
+    public int getOpeningCount() {
+        return openingEmpty.length;
+    }
+
+    /**
+     * Get the opening of an empty tile
+     *
+     * @param x X-coordinate of tile
+     * @param y Y-coordinate of tile
+     * @return opening number, or -1 if tile is not empty
+     */
+    public int getOpening(int x, int y) {
+        return tileOpening[x * height + y];
+    }
+
+    /**
+     * Get index of an opening's first tile. The opening's tiles are at getStart(opening) to getEnd(opening) - 1.
+     *
+     * @param opening opening number
+     * @return index of first tile
+     */
+    public int getStart(int opening) {
+        return openingStart[opening];
+    }
+
+    /**
+     * Get index after an opening's last tile
+     *
+     * @param opening opening number
+     * @return index after last tile
+     */
+    public int getEnd(int opening) {
+        return openingStart[opening + 1];
+    }
+
+    /**
+     * Get number of empty tiles in an opening. The rest of the opening's tiles are its numbered border.
+     *
+     * @param opening opening number
+     * @return number of empty tiles
+     */
+    public int getEmptyCount(int opening) {
+        return openingEmpty[opening];
+    }
+
+    /**
+     * Get X-coordinate of a tile in the index
+     *
+     * @param i index of tile, see getStart
+     * @return X-coordinate of tile
+     */
+    public int getX(int i) {
+        return openingTiles[i] / height;
+    }
+
+    /**
+     * Get Y-coordinate of a tile in the index
+     *
+     * @param i index of tile, see getStart
+     * @return Y-coordinate of tile
+     */
+    public int getY(int i) {
+        return openingTiles[i] % height;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * This class describes a board stored in a flat array with a one-tile sentinel border around it.
+ * Tile (x,y) is at index (x + 1) * stride + y + 1, where stride = height + 2. Every real tile has all eight neighbours in the array,
+ * so neighbours are visited by adding the offsets of getOffsets() to a tile's index, with no bounds checks;
+ * the border entries hold values that make them harmless, e.g. no mine or already revealed.
+ *
+ * @author Badi Moore
+ */
+public class PaddedGrid {
+
+    private final int width;
+    private final int height;
+    private final int stride; // distance between the indexes of (x,y) and (x+1,y)
+    private final int[] offsets; // index offsets of the eight neighbours of a tile
+
+    /**
+     * Create new padded grid layout
+     *
+     * @param width number of tiles in x-dimension
+     * @param height number of tiles in y-dimension
+     */
+    public PaddedGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        stride = height + 2;
+        offsets = new int[]{-stride - 1, -stride, -stride + 1, -1, 1, stride - 1, stride, stride + 1};
+    }
+
+    /**
+     * Get board width
+     *
+     * @return number of tiles in x-dimension
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get board height
+     *
+     * @return number of tiles in y-dimension
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get length of the arrays storing the board, border included
+     *
+     * @return array length
+     */
+    public int getSize() {
+        return (width + 2) * stride;
+    }
+
+    /**
+     * Get index of a tile
+     *
+     * @param x X-coordinate of tile from left
+     * @param y Y-coordinate of tile from top
+     * @return index of tile
+     */
+    public int index(int x, int y) {
+        return (x + 1) * stride + y + 1;
+    }
+
+    /**
+     * Get X-coordinate of a tile
+     *
+     * @param index index of tile, not on the border
+     * @return X-coordinate from left
+     */
+    public int getX(int index) {
+        return index / stride - 1;
+    }
+
+    /**
+     * Get Y-coordinate of a tile
+     *
+     * @param index index of tile, not on the border
+     * @return Y-coordinate from top
+     */
+    public int getY(int index) {
+        return index % stride - 1;
+    }
+
+    /**
+     * Get the index offsets of a tile's eight neighbours. The array is shared, don't modify it.
+     *
+     * @return neighbour offsets
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Copy a board's tiles into a padded array. Border entries get the given sentinel.
+     *
+     * @param mineField the 2d array of MineCoordinates describing the game board
+     * @param sentinel tile stored on the border
+     * @return padded array of the board's tiles
+     */
+    public MineCoordinate[] pad(MineCoordinate[][] mineField, MineCoordinate sentinel) {
+        MineCoordinate[] tiles = new MineCoordinate[getSize()];
+        Arrays.fill(tiles, sentinel);
+        for (int x = 0; x < width; x++) {
+            System.arraycopy(mineField[x], 0, tiles, index(x, 0), height);
+        }
+        return tiles;
+    }
+}
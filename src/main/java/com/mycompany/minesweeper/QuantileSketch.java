@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class is a KLL quantile sketch. It estimates how values are distributed
+ * (e.g. what fraction of all game times are faster than a given time) using a fixed amount of memory,
+ * no matter how many values have been added. Sketches can be merged and written to/read from a stream.
+ *
+ * Values are stored in levels. Each value on level h stands for 2^h original values.
+ * When the sketch is full, a level is sorted and every other value is moved up one level.
+ *
+ * @author Badi Moore
+ */
+public class QuantileSketch {
+
+    public static final int DEFAULT_K = 200; // accuracy parameter, rank error is roughly 1.7 / K
+    private static final double LEVEL_RATIO = 2.0 / 3.0; // each lower level has this fraction of the capacity of the level above
+    private static final int MAX_K = 65536; // largest accuracy parameter accepted when reading a sketch
+    private static final int MAX_LEVELS = 64; // most levels accepted when reading a sketch, a count of values fits in 64 levels
+
+    private final int k;
+    private final Random random;
+    private double[][] levels; // values on each level
+    private int[] levelSizes; // number of values in use on each level
+    private long count; // number of values added to the sketch
+
+    /**
+     * Create new empty sketch with the default accuracy
+     */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Create new empty sketch
+     *
+     * @param k accuracy parameter, larger value is more accurate but uses more memory
+     */
+    public QuantileSketch(int k) {
+        this.k = k;
+        random = new Random();
+        levels = new double[1][k];
+        levelSizes = new int[1];
+        count = 0;
+    }
+
+    /**
+     * Get number of values added to sketch
+     *
+     * @return number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Add a value to the sketch
+     *
+     * @param value value to add
+     */
+    public void update(double value) {
+        add(0, value);
+        count++;
+        compress();
+    }
+
+    /**
+     * Estimate the fraction of added values that are smaller than or equal to given value
+     *
+     * @param value value to check
+     * @return fraction between 0 and 1, 0 if sketch is empty
+     */
+    public double getRank(double value) {
+        if (count == 0) {
+            return 0;
+        }
+        long weight = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < levelSizes[h]; i++) {
+                if (levels[h][i] <= value) {
+                    weight += 1L << h;
+                }
+            }
+        }
+        return (double) weight / count;
+    }
+
+    /**
+     * Add all values of another sketch to this sketch. The other sketch is not changed.
+     *
+     * @param other sketch to merge into this one
+     */
+    public void merge(QuantileSketch other) {
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.levelSizes[h]; i++) {
+                add(h, other.levels[h][i]);
+            }
+        }
+        count += other.count;
+        compress();
+    }
+
+    /**
+     * Write the sketch to a stream
+     *
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(k);
+        out.writeLong(count);
+        out.writeShort(levels.length);
+        for (int h = 0; h < levels.length; h++) {
+            out.writeInt(levelSizes[h]);
+            for (int i = 0; i < levelSizes[h]; i++) {
+                out.writeDouble(levels[h][i]);
+            }
+        }
+    }
+
+    /**
+     * Read a sketch written with write().
+     * The sizes in the stream are checked before anything is allocated, so a corrupt file is reported as an IOException.
+     *
+     * @param in stream to read from
+     * @return the sketch
+     * @throws IOException if reading fails or the stream doesn't hold a valid sketch
+     */
+    public static QuantileSketch read(DataInput in) throws IOException {
+        int k = in.readInt();
+        if (k <= 0 || k > MAX_K) {
+            throw new IOException("Invalid sketch accuracy " + k);
+        }
+        QuantileSketch sketch = new QuantileSketch(k);
+        sketch.count = in.readLong();
+        int levelCount = in.readShort();
+        if (sketch.count < 0 || levelCount < 0 || levelCount > MAX_LEVELS) {
+            throw new IOException("Invalid sketch with " + sketch.count + " values on " + levelCount + " levels");
+        }
+        sketch.levels = new double[levelCount][];
+        sketch.levelSizes = new int[levelCount];
+        for (int h = 0; h < levelCount; h++) {
+            int size = in.readInt();
+            // no level holds more than k values: the top level's capacity is k, and lower levels are compacted before reaching it
+            if (size < 0 || size > k) {
+                throw new IOException("Invalid sketch level size " + size);
+            }
+            sketch.levels[h] = new double[Math.max(size, 2)];
+            sketch.levelSizes[h] = size;
+            for (int i = 0; i < size; i++) {
+                sketch.levels[h][i] = in.readDouble();
+            }
+        }
+        return sketch;
+    }
+
+    /**
+     * Add a value to a level, growing the level array or adding a new level if needed
+     *
+     * @param h level
+     * @param value value to add
+     */
+    private void add(int h, double value) {
+        if (h >= levels.length) {
+            // a merged sketch may add several levels at once
+            int oldLength = levels.length;
+            levels = Arrays.copyOf(levels, h + 1);
+            levelSizes = Arrays.copyOf(levelSizes, h + 1);
+            for (int i = oldLength; i <= h; i++) {
+                levels[i] = new double[2];
+            }
+        }
+        if (levelSizes[h] == levels[h].length) {
+            levels[h] = Arrays.copyOf(levels[h], levels[h].length * 2);
+        }
+        levels[h][levelSizes[h]++] = value;
+    }
+
+    /**
+     * Get the number of values a level may hold.
+     * The top level holds k values, and each level below it holds a smaller amount, with a minimum of 2.
+     *
+     * @param h level
+     * @return capacity of level
+     */
+    private int capacity(int h) {
+        int depth = levels.length - 1 - h;
+        return Math.max(2, (int) Math.ceil(k * Math.pow(LEVEL_RATIO, depth)));
+    }
+
+    /**
+     * Compact levels until every level is within its capacity.
+     * Compacting a level sorts it and moves every other value (randomly the odd or even ones) up one level, where they count twice.
+     */
+    private void compress() {
+        for (int h = 0; h < levels.length; h++) {
+            if (levelSizes[h] < capacity(h)) {
+                continue;
+            }
+            double[] values = levels[h];
+            int size = levelSizes[h];
+            Arrays.sort(values, 0, size);
+
+            // if the level has an odd number of values, the last one stays on this level
+            int kept = size % 2;
+            int offset = random.nextBoolean() ? 1 : 0;
+            for (int i = offset; i < size - kept; i += 2) {
+                add(h + 1, values[i]);
+            }
+            if (kept == 1) {
+                values[0] = values[size - 1];
+            }
+            levelSizes[h] = kept;
+        }
+    }
+}
@@ -25,10 +25,29 @@ public class Score {
     
     private String name;
     private double score;
+    private int bbbv; // 3BV of the board the score was played on, 0 if unknown
     
+    /**
+     * Create new Score of an unknown board
+     * 
+     * @param name score holder's name
+     * @param score score (game time in seconds)
+     */
     public Score(String name, double score) {
+        this(name, score, 0);
+    }
+
+    /**
+     * Create new Score
+     * 
+     * @param name score holder's name
+     * @param score score (game time in seconds)
+     * @param bbbv 3BV of the board, 0 if unknown
+     */
+    public Score(String name, double score, int bbbv) {
         this.name = name;
         this.score = score;
+        this.bbbv = bbbv;
     }
     
     /**
@@ -48,5 +67,26 @@ public class Score {
     public double getScore() {
         return score;
     }
+
+    /**
+     * Get 3BV of the board the score was played on
+     * 
+     * @return 3BV, 0 if unknown
+     */
+    public int getBbbv() {
+        return bbbv;
+    }
+
+    /**
+     * Get 3BV per second, the efficiency of the game regardless of the board's difficulty
+     * 
+     * @return 3BV/s, 0 if 3BV is unknown
+     */
+    public double getBbbvPerSecond() {
+        if (bbbv == 0 || score <= 0) {
+            return 0;
+        }
+        return bbbv / score;
+    }
     
 }
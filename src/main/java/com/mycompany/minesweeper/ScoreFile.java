@@ -0,0 +1,444 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * This class reads and writes the binary high score files.
+ * Every file starts with a header (magic number + format version).
+ *
+ * Scores are stored in segments, one segment file per board configuration. An index file maps each
+ * configuration key to its segment number, so a configuration's scores can be loaded without touching the others.
+ * - index file: header, sequence number (long), then key (UTF), segment number (int) and segment sequence number (long) for each configuration
+ * - segment file: header, then one record per score: name length (short), name (UTF-8 bytes), time in tenths of a second (int), 3BV (int)
+ * - segment sketch file: header, then the sketch of all game times of the configuration
+ *
+ * Version 2 segment files have no 3BV in their records.
+ * Version 1 files kept all difficulties in one score file (with a difficulty id in each record) and one sketch file.
+ * They, and the old text score file, can still be read so they can be converted to segments.
+ *
+ * @author Badi Moore
+ */
+public class ScoreFile {
+
+    public static final int MAGIC = 0x4D535343; // "MSSC"
+    public static final short SKETCH_VERSION = 2; // version of segment sketch files
+    public static final short SEGMENT_VERSION = 3; // version of segment files
+    public static final short SEGMENT_VERSION_V2 = 2; // version of segment files before 3BV, still read
+    public static final short INDEX_VERSION = 3; // version of index file
+    public static final short INDEX_VERSION_V2 = 2; // version of index files before sequence numbers, still read
+    public static final short LEGACY_VERSION = 1;
+    public static final int HEADER_SIZE = 6; // magic (4 bytes) + version (2 bytes)
+
+    // difficulty names of version 1 files, the index of each name is the difficulty id stored in the file
+    private static final String[] DIFFICULTIES = {"easy", "medium", "expert"};
+
+    /**
+     * Get the file name of a segment
+     *
+     * @param segment segment number
+     * @return name of the segment's score file
+     */
+    public static String segmentFilename(int segment) {
+        return MineConstants.SCORESEGMENT_PREFIX + segment + ".dat";
+    }
+
+    /**
+     * Get the file name of a segment's game time sketch
+     *
+     * @param segment segment number
+     * @return name of the segment's sketch file
+     */
+    public static String sketchFilename(int segment) {
+        return MineConstants.SCORESEGMENT_PREFIX + segment + ".qsk";
+    }
+
+    /**
+     * Open the lock file that guards all score files. Lock the returned channel with lock(0, Long.MAX_VALUE, shared)
+     * before reading (shared lock) or writing (exclusive lock) score files, so that several running games don't use the files at the same time.
+     *
+     * @param filename name of the lock file
+     * @return channel of the lock file
+     * @throws IOException if the file can't be opened
+     */
+    public static FileChannel openLockFile(String filename) throws IOException {
+        return FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Read only the sequence number of the segment index.
+     * This is a quick way to check if any scores have been written since the index was last read.
+     *
+     * @param filename name of the index file
+     * @return sequence number of index
+     * @throws IOException if the file can't be read or isn't a valid index file
+     */
+    public static long readIndexSequence(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(filename))) {
+            if (checkHeader(in, filename, INDEX_VERSION, INDEX_VERSION_V2) == INDEX_VERSION_V2) {
+                return 0; // version 2 index has no sequence numbers
+            }
+            return in.readLong();
+        }
+    }
+
+    /**
+     * Read the segment index
+     *
+     * @param filename name of the index file
+     * @return the index
+     * @throws IOException if the file can't be read or isn't a valid index file
+     */
+    public static ScoreIndex readIndex(String filename) throws IOException {
+        ScoreIndex index = new ScoreIndex();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            // version 2 index files have no sequence numbers
+            boolean hasSequences = checkHeader(in, filename, INDEX_VERSION, INDEX_VERSION_V2) == INDEX_VERSION;
+            if (hasSequences) {
+                index.setSequence(in.readLong());
+            }
+            // read entries until the end of the file
+            while (true) {
+                String key;
+                try {
+                    key = in.readUTF();
+                } catch (EOFException e) {
+                    break;
+                }
+                int segment = in.readInt();
+                index.put(key, segment, hasSequences ? in.readLong() : 0);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Write the segment index.
+     * The index is first written to a temporary file which then replaces the old index, so the index is never left half written.
+     *
+     * @param filename name of the index file
+     * @param index the index
+     * @throws IOException if the file can't be written
+     */
+    public static void writeIndex(String filename, ScoreIndex index) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFilename(filename))))) {
+            writeHeader(out, INDEX_VERSION);
+            out.writeLong(index.getSequence());
+            for (String key : index.getKeys()) {
+                out.writeUTF(key);
+                out.writeInt(index.getSegment(key));
+                out.writeLong(index.getSequence(key));
+            }
+        }
+        replaceWithTempFile(filename);
+    }
+
+    /**
+     * Read all scores from a segment file into a score table.
+     * The file is memory-mapped, and the only per-record allocation is the name String of each Score.
+     *
+     * @param filename name of the segment file
+     * @param table ScoreTable to add the scores to
+     * @throws IOException if the file can't be read or isn't a valid segment file
+     */
+    public static void readTable(String filename, ScoreTable table) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            boolean hasBbbv = checkHeader(buffer, filename, SEGMENT_VERSION, SEGMENT_VERSION_V2) == SEGMENT_VERSION;
+
+            byte[] nameBytes = new byte[64]; // scratch buffer for names, reused for every record
+            while (buffer.remaining() > 0) {
+                int nameLength = buffer.getShort() & 0xFFFF;
+                // grow the scratch buffer only if a name doesn't fit
+                if (nameLength > nameBytes.length) {
+                    nameBytes = new byte[nameLength];
+                }
+                buffer.get(nameBytes, 0, nameLength);
+                int time = buffer.getInt();
+                int bbbv = hasBbbv ? buffer.getInt() : 0;
+                table.addLoadedScore(new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8), time / 10.0, bbbv);
+            }
+        } catch (BufferUnderflowException e) {
+            // the last record was cut short, e.g. by a crash while the file was written
+            throw new IOException(filename + " is corrupt", e);
+        }
+    }
+
+    /**
+     * Write all scores in a score table to a segment file.
+     * Like the index, the segment is first written to a temporary file which then replaces the old segment.
+     *
+     * @param filename name of the segment file
+     * @param table ScoreTable to write
+     * @throws IOException if the file can't be written
+     */
+    public static void writeTable(String filename, ScoreTable table) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFilename(filename))))) {
+            writeHeader(out, SEGMENT_VERSION);
+            for (Score score : table) {
+                writeRecord(out, score.getName(), score.getScore());
+                out.writeInt(score.getBbbv());
+            }
+        }
+        replaceWithTempFile(filename);
+    }
+
+    /**
+     * Read a game time sketch file
+     *
+     * @param filename name of the sketch file
+     * @return the sketch
+     * @throws IOException if the file can't be read or isn't a valid sketch file
+     */
+    public static QuantileSketch readSketch(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            checkHeader(in, filename, SKETCH_VERSION);
+            return QuantileSketch.read(in);
+        }
+    }
+
+    /**
+     * Write a game time sketch file. The sketch is first written to a temporary file which then replaces the old sketch.
+     *
+     * @param filename name of the sketch file
+     * @param sketch sketch to write
+     * @throws IOException if the file can't be written
+     */
+    public static void writeSketch(String filename, QuantileSketch sketch) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFilename(filename))))) {
+            writeHeader(out, SKETCH_VERSION);
+            sketch.write(out);
+        }
+        replaceWithTempFile(filename);
+    }
+
+    /**
+     * Read a version 1 score file (and its sketch file, if it exists) into score tables, creating a table for each difficulty found
+     *
+     * @param scoreFilename name of the version 1 score file
+     * @param sketchFilename name of the version 1 sketch file
+     * @param tables ScoreTables by difficulty
+     * @throws IOException if a file can't be read or isn't a valid version 1 file
+     */
+    public static void readLegacy(String scoreFilename, String sketchFilename, Map<String, ScoreTable> tables) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(scoreFilename), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(buffer, scoreFilename, LEGACY_VERSION);
+
+            byte[] nameBytes = new byte[64];
+            while (buffer.remaining() > 0) {
+                int difficultyId = buffer.getShort();
+                int nameLength = buffer.getShort() & 0xFFFF;
+                if (nameLength > nameBytes.length) {
+                    nameBytes = new byte[nameLength];
+                }
+                buffer.get(nameBytes, 0, nameLength);
+                int time = buffer.getInt();
+
+                // skip records with an unknown difficulty
+                if (difficultyId < 0 || difficultyId >= DIFFICULTIES.length) {
+                    continue;
+                }
+                getTable(tables, DIFFICULTIES[difficultyId]).addScore(new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8), time / 10.0);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException(scoreFilename + " is corrupt", e);
+        }
+
+        if (!new File(sketchFilename).exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sketchFilename)))) {
+            checkHeader(in, sketchFilename, LEGACY_VERSION);
+            // read until the end of the file
+            while (true) {
+                int difficultyId;
+                try {
+                    difficultyId = in.readShort();
+                } catch (EOFException e) {
+                    break;
+                }
+                QuantileSketch sketch = QuantileSketch.read(in);
+                if (difficultyId >= 0 && difficultyId < DIFFICULTIES.length) {
+                    getTable(tables, DIFFICULTIES[difficultyId]).setGameTimes(sketch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read an old text score file (lines of format &lt;difficulty&gt;;&lt;name&gt;;&lt;score&gt;) into score tables,
+     * creating a table for each difficulty found. The text file is streamed one line at a time.
+     *
+     * @param filename name of the text score file
+     * @param tables ScoreTables by difficulty
+     * @return number of scores read
+     * @throws IOException if the file can't be read
+     */
+    public static int readText(String filename, Map<String, ScoreTable> tables) throws IOException {
+        int count = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                // the difficulty is everything before the first semicolon and the score everything after the last one
+                // the name is everything in between, so names may contain semicolons
+                int first = line.indexOf(';');
+                int last = line.lastIndexOf(';');
+                if (first < 0 || first == last) {
+                    continue;
+                }
+                double score;
+                try {
+                    score = Double.parseDouble(line.substring(last + 1));
+                } catch (NumberFormatException e) {
+                    continue; // skip broken lines
+                }
+                getTable(tables, line.substring(0, first)).addScore(line.substring(first + 1, last), score);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get a table from a map, creating it if it doesn't exist yet
+     *
+     * @param tables ScoreTables by key
+     * @param key configuration key
+     * @return table for key
+     */
+    private static ScoreTable getTable(Map<String, ScoreTable> tables, String key) {
+        return tables.computeIfAbsent(key, ScoreTable::new);
+    }
+
+    /**
+     * Get the name of the temporary file a file is written to before it replaces the file
+     *
+     * @param filename name of the file
+     * @return name of the temporary file
+     */
+    private static String tempFilename(String filename) {
+        return filename + ".tmp";
+    }
+
+    /**
+     * Replace a file with its completely written temporary file. The move is atomic,
+     * so other games and a crash mid-write see either the old or the new file, never a half written one.
+     *
+     * @param filename name of the file
+     * @throws IOException if the file can't be replaced
+     */
+    private static void replaceWithTempFile(String filename) throws IOException {
+        Files.move(Paths.get(tempFilename(filename)), Paths.get(filename), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Check the header of a mapped file and move the buffer position past it
+     *
+     * @param buffer buffer containing the file
+     * @param filename name of the file, used for error messages
+     * @param acceptedVersions the format versions the file may have
+     * @return the version of the file
+     * @throws IOException if the header is missing or the version isn't accepted
+     */
+    private static short checkHeader(MappedByteBuffer buffer, String filename, short... acceptedVersions) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException(filename + " is not a high score file");
+        }
+        short version = buffer.getShort();
+        for (short accepted : acceptedVersions) {
+            if (version == accepted) {
+                return version;
+            }
+        }
+        throw new IOException(filename + " has unsupported version " + version);
+    }
+
+    /**
+     * Check the header of a file being streamed
+     *
+     * @param in stream reading the file
+     * @param filename name of the file, used for error messages
+     * @param acceptedVersions the format versions the file may have
+     * @return the version of the file
+     * @throws IOException if the header is missing or the version isn't accepted
+     */
+    private static short checkHeader(DataInputStream in, String filename, short... acceptedVersions) throws IOException {
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(filename + " is not a high score file");
+            }
+            short version = in.readShort();
+            for (short accepted : acceptedVersions) {
+                if (version == accepted) {
+                    return version;
+                }
+            }
+            throw new IOException(filename + " has unsupported version " + version);
+        } catch (EOFException e) {
+            throw new IOException(filename + " is not a high score file");
+        }
+    }
+
+    /**
+     * Write the file header
+     *
+     * @param out stream to write to
+     * @param version format version
+     * @throws IOException if writing fails
+     */
+    private static void writeHeader(DataOutputStream out, short version) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(version);
+    }
+
+    /**
+     * Write one score record
+     *
+     * @param out stream to write to
+     * @param name score holder's name
+     * @param score score in seconds
+     * @throws IOException if writing fails
+     */
+    private static void writeRecord(DataOutputStream out, String name, double score) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(nameBytes.length, 0xFFFF); // name length is stored as an unsigned short
+        out.writeShort(nameLength);
+        out.write(nameBytes, 0, nameLength);
+        out.writeInt((int) Math.round(score * 10)); // times have one decimal, so they are stored as tenths of a second
+    }
+}
@@ -16,44 +16,84 @@
  */
 package com.mycompany.minesweeper;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Map.Entry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.JOptionPane;
 
 /**
  * This class is used to handle all high scores in a game of minesweeper. Scores
- * are stored in a ScoreTable object for each difficulty level
+ * are stored in a ScoreTable object for each board configuration (e.g. "easy" or "20x20x80").
+ *
+ * Each ScoreTable is saved in its own segment file, and an index file maps configuration keys to segments.
+ * Only the index is read at start up. A table is read when it is first needed, and at most
+ * MineConstants.MAX_LOADED_SCORETABLES tables are kept in memory; the least recently used table is saved and dropped when the limit is exceeded.
+ *
+ * Several games may run at the same time and share the score files. Score files are only read while holding a shared lock
+ * on MineConstants.SCOREFILE_LOCK and only written while holding an exclusive lock. A table is saved by re-reading the index under the lock:
+ * if another game has saved the same table since it was loaded, the newer version is read and this game's new scores are merged into it,
+ * so no scores are lost. Each save increases the sequence number of the index, so refresh() can cheaply detect changes made by other games.
+ * The locks are taken as try-with-resources variables that are held but never referenced in the block, so the methods taking them
+ * suppress the "try" lint warning.
+ *
+ * The handler can also be pointed at a shared leaderboard server with setLeaderboard. Scores are then read from and submitted to the leaderboard,
+ * while the distribution of game times stays in the local score files.
  *
  * @author Badi Moore
  */
 public class ScoreHandler {
 
-    private HashMap<String, ScoreTable> scores;
+    private LinkedHashMap<String, ScoreTable> scores; // loaded tables in least recently used order
+    private ScoreIndex index; // segment of each configuration with saved scores, as last read from file
+    private LeaderboardClient leaderboard; // shared leaderboard used for scores instead of the score files, null if not used
+    private HashMap<String, ScoreTable> remoteScores; // best scores of each configuration read from the leaderboard
+    private ArrayList<ScoreListener> listeners; // notified whenever scores change
     private FileHandler fileHandler;
     private boolean scoreFileExists;
 
+    /**
+     * Create new ScoreHandler. The score index is read on the I/O thread.
+     *
+     * @param fileHandler FileHandler used to check for score files
+     */
     public ScoreHandler(FileHandler fileHandler) {
         this.fileHandler = fileHandler;
 
-        // create ScoreTable for each difficulty and store in HashMap
-        scores = new HashMap<>();
-        scores.put("easy", new ScoreTable("easy"));
-        scores.put("medium", new ScoreTable("medium"));
-        scores.put("expert", new ScoreTable("expert"));
+        // loaded ScoreTables, in access order so the eldest entry is the least recently used one
+        scores = new LinkedHashMap<String, ScoreTable>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ScoreTable> eldest) {
+                if (size() <= MineConstants.MAX_LOADED_SCORETABLES) {
+                    return false;
+                }
+                // make sure no scores are lost when the table is dropped, a table that couldn't be saved stays loaded
+                return saveTable(eldest.getValue());
+            }
+        };
+        index = new ScoreIndex();
+        remoteScores = new HashMap<>();
+        listeners = new ArrayList<>();
 
         // does score file exist
-        scoreFileExists = fileHandler.fileExists(MineConstants.SCOREFILE);
+        // old score files also count, they are converted to segments before reading
+        scoreFileExists = fileHandler.fileExists(MineConstants.SCOREFILE)
+                || fileHandler.fileExists(MineConstants.SCOREFILE_LEGACY)
+                || fileHandler.fileExists(MineConstants.SCOREFILE_TEXT);
 
         // if score file doesn't exist, ask user if file should be created
         if (!fileExists()) {
             newFileConfirmation();
         }
-        // if file exists, read scores into the score tables
+        // if file exists, read the segment index without blocking the caller
+        // file operations run one at a time, so every later score operation started with the async methods sees the index
         if (fileExists()) {
-            readScores();
+            fileHandler.runAsync(this::readIndex);
         }
     }
 
@@ -66,10 +106,9 @@ public class ScoreHandler {
         // open dialog to ask user for confirmation
         if (JOptionPane.showConfirmDialog(null, "The high score file could not be found, do you wish to create a new file?", "File not found",
                 JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE) == JOptionPane.YES_OPTION) {
-            // write new file and set scoreFileExists to true, if write successful
-            if (fileHandler.writeText(MineConstants.SCOREFILE, "")) {
-                scoreFileExists = true;
-            }
+            // write new file on the I/O thread, scoreFileExists is set back to false if the write fails
+            scoreFileExists = true;
+            fileHandler.runAsync(this::createFile);
             return true;
         } else {
             return false;
@@ -77,24 +116,128 @@ public class ScoreHandler {
     }
 
     /**
-     * Get ScoreTable for given difficulty
+     * Write a new empty score index, unless another game has created one
+     */
+    @SuppressWarnings("try")
+    private synchronized void createFile() {
+        try (FileChannel lockChannel = ScoreFile.openLockFile(MineConstants.SCOREFILE_LOCK);
+                FileLock lock = lockChannel.lock()) {
+            if (!fileHandler.fileExists(MineConstants.SCOREFILE)) {
+                ScoreFile.writeIndex(MineConstants.SCOREFILE, index);
+            }
+        } catch (IOException e) {
+            scoreFileExists = false;
+            showError("Error writing file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Use a shared leaderboard for scores instead of the score files. Unsaved scores are saved first.
+     *
+     * @param leaderboard client of the leaderboard, or null to use the score files again
+     */
+    public synchronized void setLeaderboard(LeaderboardClient leaderboard) {
+        writeScores();
+        this.leaderboard = leaderboard;
+        remoteScores.clear();
+        fireScoresChanged(null);
+    }
+
+    /**
+     * Get ScoreTable for given difficulty, reading it from file (or the leaderboard) if it isn't loaded.
+     * Tables read from the leaderboard only have the best MineConstants.LEADERBOARD_FETCH_SCORES scores.
+     *
+     * @param difficulty difficulty (board configuration key) of scores
+     * @return ScoreTable object with scores for difficulty
+     */
+    public synchronized ScoreTable getScores(String difficulty) {
+        if (leaderboard != null) {
+            return getRemoteScores(difficulty);
+        }
+        return getLocalScores(difficulty);
+    }
+
+    /**
+     * Get ScoreTable for given difficulty from the score files, reading it if it isn't loaded
      *
-     * @param difficulty difficulty of scores
+     * @param difficulty difficulty (board configuration key) of scores
      * @return ScoreTable object with scores for difficulty
      */
-    public ScoreTable getScores(String difficulty) {
-        return scores.get(difficulty);
+    @SuppressWarnings("try")
+    private ScoreTable getLocalScores(String difficulty) {
+        ScoreTable table = scores.get(difficulty);
+        if (table == null) {
+            table = new ScoreTable(difficulty);
+            if (scoreFileExists) {
+                try (FileChannel lockChannel = ScoreFile.openLockFile(MineConstants.SCOREFILE_LOCK);
+                        FileLock lock = lockChannel.lock(0, Long.MAX_VALUE, true)) {
+                    updateIndex();
+                    table = loadTable(difficulty);
+                } catch (IOException e) {
+                    showError("Error reading file: " + e.getMessage());
+                }
+            }
+            scores.put(difficulty, table);
+        }
+        return table;
     }
 
     /**
-     * Reset scores
+     * Get ScoreTable for given difficulty from the leaderboard, reading it if it isn't loaded
+     *
+     * @param difficulty difficulty (board configuration key) of scores
+     * @return ScoreTable object with the best scores for difficulty
      */
-    public void resetScores() {
-        // go through each ScoreTable and replace it with new ScoreTable
-        for (Entry entry : scores.entrySet()) {
-            entry.setValue(new ScoreTable((String) entry.getKey()));
+    private ScoreTable getRemoteScores(String difficulty) {
+        ScoreTable table = remoteScores.get(difficulty);
+        if (table == null) {
+            try {
+                table = leaderboard.fetchTable(difficulty, MineConstants.LEADERBOARD_FETCH_SCORES);
+            } catch (IOException e) {
+                // keep an empty table, refresh() tries again
+                showError("Error reading leaderboard: " + e.getMessage());
+                table = new ScoreTable(difficulty);
+            }
+            remoteScores.put(difficulty, table);
         }
-        fileHandler.writeText(MineConstants.SCOREFILE, ""); // overwrite score file with empty String
+        return table;
+    }
+
+    /**
+     * Get ScoreTable for given board configuration
+     *
+     * @param config board configuration
+     * @return ScoreTable object with scores for configuration
+     */
+    public ScoreTable getScores(BoardConfig config) {
+        return getScores(config.getKey());
+    }
+
+    /**
+     * Reset scores. The scores are reset for every game using the score files. Scores on a leaderboard are not reset.
+     */
+    @SuppressWarnings("try")
+    public synchronized void resetScores() {
+        scores.clear();
+        if (scoreFileExists) {
+            try (FileChannel lockChannel = ScoreFile.openLockFile(MineConstants.SCOREFILE_LOCK);
+                    FileLock lock = lockChannel.lock()) {
+                // delete every segment, then write an empty index
+                // the sequence number is kept increasing, so other games notice the reset
+                updateIndex();
+                for (String key : index.getKeys()) {
+                    new File(ScoreFile.segmentFilename(index.getSegment(key))).delete();
+                    new File(ScoreFile.sketchFilename(index.getSegment(key))).delete();
+                }
+                ScoreIndex emptyIndex = new ScoreIndex();
+                emptyIndex.setSequence(index.getSequence() + 1);
+                ScoreFile.writeIndex(MineConstants.SCOREFILE, emptyIndex);
+                index = emptyIndex;
+            } catch (IOException e) {
+                showError("Error writing file: " + e.getMessage());
+            }
+        }
+        fireScoresChanged(null);
     }
 
     /**
@@ -102,10 +245,72 @@ public class ScoreHandler {
      *
      * @param name score holder's name
      * @param score score
+     * @param bbbv 3BV of the board, 0 if unknown
+     * @param difficulty game difficulty
+     */
+    public synchronized void addScore(String name, double score, int bbbv, String difficulty) {
+        getScores(difficulty).addScore(name, score, bbbv);
+        fireScoresChanged(difficulty);
+    }
+
+    /**
+     * Add listener to be notified when scores change
+     *
+     * @param listener listener to add
+     */
+    public synchronized void addScoreListener(ScoreListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove listener added with addScoreListener
+     *
+     * @param listener listener to remove
+     */
+    public synchronized void removeScoreListener(ScoreListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notify all listeners that scores have changed
+     *
+     * @param difficulty difficulty of changed scores, or null if all scores changed
+     */
+    private void fireScoresChanged(String difficulty) {
+        for (ScoreListener listener : listeners) {
+            listener.scoresChanged(difficulty);
+        }
+    }
+
+    /**
+     * Record the time of a won game in the difficulty's game time distribution and save the distribution
+     *
      * @param difficulty game difficulty
+     * @param time game time in seconds
+     * @return fraction of previously recorded games that were slower than this one
+     */
+    public synchronized double recordGame(String difficulty, double time) {
+        ScoreTable table = getLocalScores(difficulty);
+        double fasterThan = table.getFasterThanFraction(time);
+        table.addGameTime(time);
+        saveTable(table);
+        return fasterThan;
+    }
+
+    /**
+     * Merge a game time distribution from another sketch file (e.g. from another computer) into a difficulty's distribution
+     *
+     * @param filename name of the sketch file to merge
+     * @param difficulty difficulty the sketch belongs to
      */
-    public void addScore(String name, double score, String difficulty) {
-        scores.get(difficulty).addScore(name, score);
+    public synchronized void mergeSketch(String filename, String difficulty) {
+        ScoreTable table = getLocalScores(difficulty);
+        try {
+            table.mergeGameTimes(ScoreFile.readSketch(filename));
+        } catch (IOException e) {
+            showError("Error reading file: " + e.getMessage());
+        }
+        saveTable(table);
     }
 
     /**
@@ -115,12 +320,12 @@ public class ScoreHandler {
      * @param score score
      * @return is score a high score?
      */
-    public boolean isHighScore(String difficulty, double score) {
-        // if score file doesn't exist, return false
-        if (!scoreFileExists) {
+    public synchronized boolean isHighScore(String difficulty, double score) {
+        // if score file doesn't exist and no leaderboard is used, return false
+        if (!scoreFileExists && leaderboard == null) {
             return false;
         }
-        return scores.get(difficulty).isHighScore(score);
+        return getScores(difficulty).isHighScore(score);
     }
 
     /**
@@ -133,50 +338,341 @@ public class ScoreHandler {
     }
 
     /**
-     * Read scores from file and store them in ScoreTable
+     * Reload the loaded tables that other games have saved since they were loaded, and notify listeners of the reloaded tables.
+     * This only reads the sequence number of the index when nothing has changed, so it can be called often.
+     * Tables with unsaved changes are not reloaded, their changes are merged with the newer version when they are saved.
      */
-    private void readScores() {
-        try {
-            BufferedReader br = new BufferedReader(new StringReader(fileHandler.readText(MineConstants.SCOREFILE)));
-            String newLine = ""; // variable to read new lines into
-            // read lines until the new line is null
-            while ((newLine = br.readLine()) != null) {
-                String[] splitLine = newLine.split(";");
-
-                // if line has more than two semicolons (;) there must be one or more semicolons in the name
-                // the first string is always the difficulty level, the last string always the score
-                // if splitLine is over 3 long, we much combine all the values in between the first and last one.
-                if (splitLine.length > 3) {
-                    String name = splitLine[1];
-                    // combine values of indexes between first and last index and add in missing semicolons
-                    for (int i = 2; i < splitLine.length - 1; i++) {
-                        name += ";" + splitLine[i];
-                    }
-
-                    // create new size 3 array and assign difficulty, name and score values to it 
-                    String[] newSplitLine = new String[3];
-                    newSplitLine[0] = splitLine[0];
-                    newSplitLine[2] = splitLine[splitLine.length - 1];
-                    newSplitLine[1] = name;
-
-                    splitLine = newSplitLine; // assign the new array to the old array's variable
+    @SuppressWarnings("try")
+    public synchronized void refresh() {
+        if (leaderboard != null) {
+            refreshRemote();
+        }
+        if (!scoreFileExists) {
+            return;
+        }
+        ArrayList<String> reloaded = new ArrayList<>();
+        try (FileChannel lockChannel = ScoreFile.openLockFile(MineConstants.SCOREFILE_LOCK);
+                FileLock lock = lockChannel.lock(0, Long.MAX_VALUE, true)) {
+            if (!updateIndex()) {
+                return;
+            }
+            for (ScoreTable table : scores.values()) {
+                if (!table.isChanged() && table.getSequence() != index.getSequence(table.getDifficulty())) {
+                    table.replaceContents(loadTable(table.getDifficulty()));
+                    reloaded.add(table.getDifficulty());
                 }
+            }
+        } catch (IOException e) {
+            showError("Error reading file: " + e.getMessage());
+        }
+        for (String difficulty : reloaded) {
+            fireScoresChanged(difficulty);
+        }
+    }
 
-                // add the score to the table
-                scores.get(splitLine[0]).addScore(splitLine[1], Double.valueOf(splitLine[2]));
+    /**
+     * Read the leaderboard tables again if their version on the server has changed
+     */
+    private void refreshRemote() {
+        for (ScoreTable table : remoteScores.values()) {
+            if (table.isChanged()) {
+                continue; // submitted first, then read again by the next refresh
+            }
+            try {
+                if (leaderboard.getVersion(table.getDifficulty()) != table.getSequence()) {
+                    table.replaceContents(leaderboard.fetchTable(table.getDifficulty(), MineConstants.LEADERBOARD_FETCH_SCORES));
+                    fireScoresChanged(table.getDifficulty());
+                }
+            } catch (IOException e) {
+                showError("Error reading leaderboard: " + e.getMessage());
+                return;
+            }
+        }
+    }
 
+    /**
+     * Submit the new scores of a leaderboard table. Scores that couldn't be submitted are kept and submitted again by the next save.
+     *
+     * @param table table read from the leaderboard
+     */
+    private void submitTable(ScoreTable table) {
+        ArrayList<Score> pending = table.getPendingScores();
+        try {
+            while (!pending.isEmpty()) {
+                Score score = pending.get(0);
+                leaderboard.submit(table.getDifficulty(), score.getName(), score.getScore(), score.getBbbv());
+                pending.remove(0);
             }
-            br.close();
+            table.clearChanges();
         } catch (IOException e) {
+            showError("Error writing leaderboard: " + e.getMessage());
         }
     }
 
     /**
-     * Write all scores to file
+     * Load the tables of the given difficulties on the I/O thread, after reloading tables that other games have changed.
+     * Call this before showing scores, so the event dispatch thread doesn't have to wait for the files.
+     *
+     * @param difficulties difficulties of tables to load
+     * @return future completed when the tables are loaded
+     */
+    public CompletableFuture<Void> loadAsync(String... difficulties) {
+        return fileHandler.runAsync(() -> {
+            refresh();
+            for (String difficulty : difficulties) {
+                getScores(difficulty);
+            }
+        });
+    }
+
+    /**
+     * Copy a page of scores on the I/O thread. If the page no longer exists, e.g. because the scores were reset, the first page is copied.
+     *
+     * @param difficulty difficulty (board configuration key) of scores
+     * @param page index of page
+     * @param pageSize number of scores on one page
+     * @param order ScoreTable.BY_TIME or ScoreTable.BY_EFFICIENCY
+     * @return future completed with the copied page
+     */
+    public CompletableFuture<ScorePage> getPageAsync(String difficulty, int page, int pageSize, int order) {
+        return fileHandler.supplyAsync(() -> getPage(difficulty, page, pageSize, order));
+    }
+
+    /**
+     * Copy a page of scores
+     *
+     * @param difficulty difficulty (board configuration key) of scores
+     * @param page index of page
+     * @param pageSize number of scores on one page
+     * @param order ScoreTable.BY_TIME or ScoreTable.BY_EFFICIENCY
+     * @return the copied page
+     */
+    private synchronized ScorePage getPage(String difficulty, int page, int pageSize, int order) {
+        ScoreTable table = getScores(difficulty);
+        int shownPage = page * pageSize < table.size() ? page : 0;
+        return new ScorePage(shownPage, shownPage * pageSize, table.getPage(shownPage * pageSize, pageSize, order), table.size());
+    }
+
+    /**
+     * Record the time of a won game on the I/O thread, after reloading tables that other games have changed
+     *
+     * @param difficulty game difficulty
+     * @param time game time in seconds
+     * @return future completed with the fraction of previously recorded games that were slower than this one
+     */
+    public CompletableFuture<Double> recordGameAsync(String difficulty, double time) {
+        return fileHandler.supplyAsync(() -> {
+            refresh();
+            getScores(difficulty); // the score table is needed next to check for a high score
+            return recordGame(difficulty, time);
+        });
+    }
+
+    /**
+     * Add a new score on the I/O thread and write the changed scores to file
+     *
+     * @param name score holder's name
+     * @param score score
+     * @param bbbv 3BV of the board, 0 if unknown
+     * @param difficulty game difficulty
+     * @return future completed when the score is added and written
+     */
+    public CompletableFuture<Void> addScoreAsync(String name, double score, int bbbv, String difficulty) {
+        return fileHandler.runAsync(() -> {
+            addScore(name, score, bbbv, difficulty);
+            writeScores();
+        });
+    }
+
+    /**
+     * Check on the I/O thread if given score is a high score
+     *
+     * @param difficulty game difficulty
+     * @param score score
+     * @return future completed with whether the score is a high score
+     */
+    public CompletableFuture<Boolean> isHighScoreAsync(String difficulty, double score) {
+        return fileHandler.supplyAsync(() -> isHighScore(difficulty, score));
+    }
+
+    /**
+     * Reset scores on the I/O thread
+     *
+     * @return future completed when the scores are reset
+     */
+    public CompletableFuture<Void> resetScoresAsync() {
+        return fileHandler.runAsync(this::resetScores);
+    }
+
+    /**
+     * Write all changed scores to file on the I/O thread
+     *
+     * @return future completed when the scores are written
+     */
+    public CompletableFuture<Void> writeScoresAsync() {
+        return fileHandler.runAsync(this::writeScores);
+    }
+
+    /**
+     * Read the segment index from file
+     * If only old score files exist, they are first converted to segments.
+     */
+    @SuppressWarnings("try")
+    private synchronized void readIndex() {
+        try (FileChannel lockChannel = ScoreFile.openLockFile(MineConstants.SCOREFILE_LOCK);
+                FileLock lock = lockChannel.lock()) {
+            // another game may have converted the old files already
+            if (!fileHandler.fileExists(MineConstants.SCOREFILE)) {
+                migrate();
+            }
+            index = ScoreFile.readIndex(MineConstants.SCOREFILE);
+        } catch (IOException e) {
+            showError("Error reading file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read the segment index again if another game has changed it. Call only while holding the lock.
+     *
+     * @return was the index read again?
+     * @throws IOException if the index can't be read
+     */
+    private boolean updateIndex() throws IOException {
+        if (ScoreFile.readIndexSequence(MineConstants.SCOREFILE) == index.getSequence()) {
+            return false;
+        }
+        index = ScoreFile.readIndex(MineConstants.SCOREFILE);
+        return true;
+    }
+
+    /**
+     * Convert the old version 1 binary score file or the text score file into segments. Call only while holding the exclusive lock.
+     *
+     * @throws IOException if a file can't be read or written
+     */
+    private void migrate() throws IOException {
+        HashMap<String, ScoreTable> oldTables = new HashMap<>();
+        if (fileHandler.fileExists(MineConstants.SCOREFILE_LEGACY)) {
+            ScoreFile.readLegacy(MineConstants.SCOREFILE_LEGACY, MineConstants.SKETCHFILE_LEGACY, oldTables);
+        } else if (fileHandler.fileExists(MineConstants.SCOREFILE_TEXT)) {
+            ScoreFile.readText(MineConstants.SCOREFILE_TEXT, oldTables);
+        }
+        ScoreIndex newIndex = new ScoreIndex();
+        for (ScoreTable table : oldTables.values()) {
+            writeSegment(table, newIndex);
+        }
+        ScoreFile.writeIndex(MineConstants.SCOREFILE, newIndex);
+    }
+
+    /**
+     * Read a table from its segment, or create an empty table if the configuration has no segment yet.
+     * Call only while holding the lock.
+     *
+     * @param difficulty difficulty (board configuration key) of table
+     * @return the table
+     * @throws IOException if the segment can't be read
+     */
+    private ScoreTable loadTable(String difficulty) throws IOException {
+        ScoreTable table = new ScoreTable(difficulty);
+        Integer segment = index.getSegment(difficulty);
+        if (segment == null) {
+            return table;
+        }
+        if (fileHandler.fileExists(ScoreFile.segmentFilename(segment))) {
+            ScoreFile.readTable(ScoreFile.segmentFilename(segment), table);
+        }
+        if (fileHandler.fileExists(ScoreFile.sketchFilename(segment))) {
+            table.setGameTimes(ScoreFile.readSketch(ScoreFile.sketchFilename(segment)));
+        }
+        table.setSequence(index.getSequence(difficulty));
+        return table;
+    }
+
+    /**
+     * Save a table, if it has changed.
+     * If another game has saved the table since it was loaded, the saved version is read and the changes of this table are merged into it.
+     *
+     * @param table table to write
+     * @return false if the table has changed and couldn't be saved, true otherwise
+     */
+    @SuppressWarnings("try")
+    private boolean saveTable(ScoreTable table) {
+        // scores are only saved if the user has chosen to keep a score file
+        if (!scoreFileExists || !table.isChanged()) {
+            return true;
+        }
+        String difficulty = table.getDifficulty();
+        boolean merged = false;
+        try (FileChannel lockChannel = ScoreFile.openLockFile(MineConstants.SCOREFILE_LOCK);
+                FileLock lock = lockChannel.lock()) {
+            updateIndex();
+            if (table.getSequence() != index.getSequence(difficulty)) {
+                // the table is out of date, add its changes to the saved version
+                ScoreTable newer = loadTable(difficulty);
+                for (Score score : table.getPendingScores()) {
+                    newer.addLoadedScore(score.getName(), score.getScore(), score.getBbbv());
+                }
+                newer.getGameTimes().merge(table.getPendingGameTimes());
+                table.replaceContents(newer);
+                merged = true;
+            }
+            Integer oldSegment = index.getSegment(difficulty);
+            writeSegment(table, index);
+            ScoreFile.writeIndex(MineConstants.SCOREFILE, index);
+            // the old segment is only deleted once the new index no longer points to it
+            if (oldSegment != null) {
+                new File(ScoreFile.segmentFilename(oldSegment)).delete();
+                new File(ScoreFile.sketchFilename(oldSegment)).delete();
+            }
+            table.clearChanges();
+        } catch (IOException e) {
+            showError("Error writing file: " + e.getMessage());
+        }
+        if (merged) {
+            fireScoresChanged(difficulty);
+        }
+        return !table.isChanged();
+    }
+
+    /**
+     * Write a table to a new segment and point the table's entry in the given index to it.
+     * The index itself isn't written. Call only while holding the exclusive lock.
+     *
+     * @param table table to write
+     * @param segmentIndex index to add the segment to
+     * @throws IOException if the segment can't be written
+     */
+    private void writeSegment(ScoreTable table, ScoreIndex segmentIndex) throws IOException {
+        // a new segment is used, so the old one stays intact until the index is written
+        int segment = segmentIndex.getNextSegment();
+        ScoreFile.writeTable(ScoreFile.segmentFilename(segment), table);
+        ScoreFile.writeSketch(ScoreFile.sketchFilename(segment), table.getGameTimes());
+        long sequence = segmentIndex.getSequence() + 1;
+        segmentIndex.setSequence(sequence);
+        segmentIndex.put(table.getDifficulty(), segment, sequence);
+        table.setSequence(sequence);
+    }
+
+    /**
+     * Write all changed scores to file
+     */
+    public synchronized void writeScores() {
+        for (ScoreTable table : scores.values()) {
+            saveTable(table);
+        }
+        for (ScoreTable table : remoteScores.values()) {
+            if (table.isChanged()) {
+                submitTable(table);
+            }
+        }
+    }
+
+    /**
+     * Report an error about the score file to the FileHandler's error listeners
+     *
+     * @param message error message
      */
-    public void writeScores() {
-        StringBuilder sb = new StringBuilder();
-        scores.forEach((k, v) -> sb.append(v.toString())); // fetch each ScoreTable and 
-        fileHandler.writeText(MineConstants.SCOREFILE, sb.toString());
+    private void showError(String message) {
+        fileHandler.reportError(message);
     }
 }
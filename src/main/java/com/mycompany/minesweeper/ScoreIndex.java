@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * This class is the index of the score segments. It maps each board configuration key to its segment number.
+ * Every write to a segment increases the segment's sequence number and the sequence number of the whole index,
+ * so other processes can see which segments have changed since they read them.
+ *
+ * @author Badi Moore
+ */
+public class ScoreIndex {
+
+    private LinkedHashMap<String, Integer> segments; // segment number by configuration key
+    private HashMap<String, Long> sequences; // sequence number of each segment by configuration key
+    private long sequence; // sequence number of the whole index, increased on every write
+
+    /**
+     * Create new empty index
+     */
+    public ScoreIndex() {
+        segments = new LinkedHashMap<>();
+        sequences = new HashMap<>();
+        sequence = 0;
+    }
+
+    /**
+     * Get sequence number of the whole index
+     *
+     * @return sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Set sequence number of the whole index
+     *
+     * @param sequence sequence number
+     */
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Get segment number of a configuration
+     *
+     * @param key configuration key
+     * @return segment number, or null if configuration has no segment
+     */
+    public Integer getSegment(String key) {
+        return segments.get(key);
+    }
+
+    /**
+     * Get sequence number of a configuration's segment
+     *
+     * @param key configuration key
+     * @return sequence number, 0 if configuration has no segment
+     */
+    public long getSequence(String key) {
+        return sequences.getOrDefault(key, 0L);
+    }
+
+    /**
+     * Add or update a configuration's segment
+     *
+     * @param key configuration key
+     * @param segment segment number
+     * @param segmentSequence sequence number of segment
+     */
+    public void put(String key, int segment, long segmentSequence) {
+        segments.put(key, segment);
+        sequences.put(key, segmentSequence);
+    }
+
+    /**
+     * Get all configuration keys that have a segment
+     *
+     * @return configuration keys
+     */
+    public Set<String> getKeys() {
+        return segments.keySet();
+    }
+
+    /**
+     * Get the segment number for a new configuration
+     *
+     * @return a segment number not used by any configuration
+     */
+    public int getNextSegment() {
+        int next = 0;
+        for (int segment : segments.values()) {
+            next = Math.max(next, segment + 1);
+        }
+        return next;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is an immutable copy of one page of a score table. Pages are copied on the I/O thread
+ * and handed to the event dispatch thread, so showing scores never touches the score tables themselves.
+ *
+ * @author Badi Moore
+ */
+public class ScorePage {
+
+    private final int page; // index of page
+    private final int first; // index of first score on page in the whole table
+    private final List<Score> scores;
+    private final int totalScores; // number of scores in the whole table
+
+    /**
+     * Create new ScorePage
+     *
+     * @param page index of page
+     * @param first index of first score on page in the whole table
+     * @param scores scores on the page, best first
+     * @param totalScores number of scores in the whole table
+     */
+    public ScorePage(int page, int first, List<Score> scores, int totalScores) {
+        this.page = page;
+        this.first = first;
+        this.scores = Collections.unmodifiableList(scores);
+        this.totalScores = totalScores;
+    }
+
+    /**
+     * Get index of page
+     *
+     * @return index of page
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * Get index of first score on page in the whole table
+     *
+     * @return index of first score
+     */
+    public int getFirst() {
+        return first;
+    }
+
+    /**
+     * Get the scores on the page
+     *
+     * @return unmodifiable list of scores, best first
+     */
+    public List<Score> getScores() {
+        return scores;
+    }
+
+    /**
+     * Get number of scores in the whole table
+     *
+     * @return number of scores
+     */
+    public int getTotalScores() {
+        return totalScores;
+    }
+}
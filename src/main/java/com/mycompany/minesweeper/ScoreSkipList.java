@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * This class is a skip list of Scores sorted from best to worst by a sort key, the smallest key being the best.
+ * By default the key is the score (time), so the fastest score is first.
+ * Every link also stores how many positions it skips over, which makes it possible to
+ * look up a score's rank and the score at a given rank in O(log n) time.
+ * Equal scores are kept in the order they were inserted.
+ *
+ * @author Badi Moore
+ */
+public class ScoreSkipList implements Iterable<Score> {
+
+    private static final int MAX_LEVEL = 16; // each level is a quarter as likely as the one below, so 16 levels cover 4^16 scores
+
+    private final Node head; // first node, holds no score
+    private final Node[] tail; // last node on each level, used to append scores in sorted order quickly
+    private final Node[] update; // work array: last node before the insert position on each level
+    private final int[] rank; // work array: position of each update node
+    private final Random random;
+    private final ToDoubleFunction<Score> key; // sort key of a score, smaller is better
+    private int level; // number of levels currently in use
+    private int size;
+
+    /**
+     * One node in the skip list
+     */
+    private static class Node {
+
+        private final Score score;
+        private final Node[] next; // next node on each level
+        private final int[] span; // how many positions each link on each level skips (to the end of the list for the last link)
+
+        private Node(Score score, int levels) {
+            this.score = score;
+            next = new Node[levels];
+            span = new int[levels];
+        }
+    }
+
+    /**
+     * Create new empty ScoreSkipList sorted by score (time)
+     */
+    public ScoreSkipList() {
+        this(Score::getScore);
+    }
+
+    /**
+     * Create new empty ScoreSkipList sorted by a sort key
+     *
+     * @param key sort key of a score, the score with the smallest key is the best
+     */
+    public ScoreSkipList(ToDoubleFunction<Score> key) {
+        this.key = key;
+        head = new Node(null, MAX_LEVEL);
+        tail = new Node[MAX_LEVEL];
+        update = new Node[MAX_LEVEL];
+        rank = new int[MAX_LEVEL];
+        random = new Random();
+        level = 1;
+        size = 0;
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            tail[i] = head;
+        }
+    }
+
+    /**
+     * Get number of scores in list
+     *
+     * @return number of scores
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Insert score into list. The score is placed after any scores with an equal key.
+     *
+     * @param score score to insert
+     */
+    public void insert(Score score) {
+        double scoreKey = key.applyAsDouble(score);
+        if (size > 0 && scoreKey >= key.applyAsDouble(tail[0].score)) {
+            // the score is not better than any score in the list, so it goes to the end
+            // the last link on each level spans to the end of the list, so the position of each tail node can be read from its span
+            for (int i = 0; i < level; i++) {
+                update[i] = tail[i];
+                rank[i] = size - tail[i].span[i];
+            }
+        } else {
+            // go down the levels, moving right while the next score is not worse than the new score
+            Node node = head;
+            for (int i = level - 1; i >= 0; i--) {
+                rank[i] = i == level - 1 ? 0 : rank[i + 1];
+                while (node.next[i] != null && key.applyAsDouble(node.next[i].score) <= scoreKey) {
+                    rank[i] += node.span[i];
+                    node = node.next[i];
+                }
+                update[i] = node;
+            }
+        }
+
+        // if new node is taller than the list, the new levels start from the head
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                update[i].span[i] = size;
+            }
+            level = newLevel;
+        }
+
+        // link the new node in and split the spans of the links it was inserted into
+        Node newNode = new Node(score, newLevel);
+        for (int i = 0; i < newLevel; i++) {
+            newNode.next[i] = update[i].next[i];
+            update[i].next[i] = newNode;
+            newNode.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+            if (newNode.next[i] == null) {
+                tail[i] = newNode;
+            }
+        }
+        // links above the new node skip one more position
+        for (int i = newLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        size++;
+    }
+
+    /**
+     * Get the number of scores whose sort key is better than or equal to given key.
+     * This is the index a new score with this key would be inserted into.
+     *
+     * @param scoreKey sort key to check, e.g. a time for a list sorted by score
+     * @return number of scores that are not worse than the key
+     */
+    public int rank(double scoreKey) {
+        int rank = 0;
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && key.applyAsDouble(node.next[i].score) <= scoreKey) {
+                rank += node.span[i];
+                node = node.next[i];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Get score at given index, 0 being the best score
+     *
+     * @param index index of score
+     * @return score at index
+     */
+    public Score get(int index) {
+        return nodeAt(index).score;
+    }
+
+    /**
+     * Get a page of scores in order
+     *
+     * @param from index of first score on page
+     * @param count maximum number of scores on page
+     * @return ArrayList with at most count scores, starting from index from
+     */
+    public ArrayList<Score> getPage(int from, int count) {
+        ArrayList<Score> page = new ArrayList<>();
+        if (from >= size || count <= 0) {
+            return page;
+        }
+        // find the first node with the index, then walk along the bottom level
+        Node node = nodeAt(from);
+        while (node != null && page.size() < count) {
+            page.add(node.score);
+            node = node.next[0];
+        }
+        return page;
+    }
+
+    /**
+     * Iterate through all scores from best to worst
+     *
+     * @return iterator over scores
+     */
+    @Override
+    public Iterator<Score> iterator() {
+        return new Iterator<Score>() {
+            private Node node = head.next[0];
+
+            @Override
+            public boolean hasNext() {
+                return node != null;
+            }
+
+            @Override
+            public Score next() {
+                if (node == null) {
+                    throw new NoSuchElementException();
+                }
+                Score score = node.score;
+                node = node.next[0];
+                return score;
+            }
+        };
+    }
+
+    /**
+     * Find the node at given index by following links as long as their span fits
+     *
+     * @param index index of node
+     * @return node at index
+     */
+    private Node nodeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int position = -1; // head is before index 0
+        Node node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && position + node.span[i] <= index) {
+                position += node.span[i];
+                node = node.next[i];
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Pick the level for a new node. Each level is a quarter as likely as the one below it.
+     * Two random bits are used per level, so one random int is enough for all MAX_LEVEL levels.
+     *
+     * @return level between 1 and MAX_LEVEL
+     */
+    private int randomLevel() {
+        int bits = random.nextInt();
+        int newLevel = 1;
+        while (newLevel < MAX_LEVEL && (bits & 3) == 0) {
+            newLevel++;
+            bits >>>= 2;
+        }
+        return newLevel;
+    }
+}
@@ -16,16 +16,30 @@
 package com.mycompany.minesweeper;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 
 /**
- * This class keeps track off all Scores for one difficulty level of minesweeper
+ * This class keeps track off all Scores for one difficulty level (board configuration) of minesweeper.
+ * The full score history is kept in a ScoreSkipList, so inserting a score, finding the rank a score would get
+ * and fetching scores by rank all take O(log n) time. The first MineConstants.MAXSCORES scores are the high scores.
+ * A second skip list keeps the same scores ranked by efficiency (3BV/s, highest first), so pages and ranks can also be read in that order.
+ * Scores without a known 3BV have no efficiency and are ranked last in it.
  *
  * @author Badi Moore
  */
-public class ScoreTable {
+public class ScoreTable implements Iterable<Score> {
 
-    private ArrayList<Score> scores;
+    public static final int BY_TIME = 0; // order of scores: fastest first
+    public static final int BY_EFFICIENCY = 1; // order of scores: highest 3BV/s first
+
+    private ScoreSkipList scores;
+    private ScoreSkipList efficiencies; // the same scores ranked by 3BV/s
+    private QuantileSketch gameTimes; // distribution of all finished game times, not just the ones entered as scores
     private String difficulty;
+    private ArrayList<Score> pendingScores; // scores added since the table was last loaded or saved
+    private QuantileSketch pendingGameTimes; // game times added since the table was last loaded or saved
+    private boolean changed; // has the table changed since it was last saved?
+    private long sequence; // sequence number of the segment the table was loaded from or saved to, 0 if none
 
     /**
      *  Create new ScoreTable
@@ -34,7 +48,20 @@ public class ScoreTable {
      */
     public ScoreTable(String difficulty) {
         this.difficulty = difficulty;
-        scores = new ArrayList<>();
+        scores = new ScoreSkipList();
+        efficiencies = new ScoreSkipList(score -> -score.getBbbvPerSecond()); // negated, so the highest 3BV/s has the smallest key
+        gameTimes = new QuantileSketch();
+        pendingScores = new ArrayList<>();
+        pendingGameTimes = new QuantileSketch();
+    }
+
+    /**
+     * Get the difficulty (board configuration key) of the table
+     * 
+     * @return difficulty of table
+     */
+    public String getDifficulty() {
+        return difficulty;
     }
 
     /**
@@ -48,12 +75,74 @@ public class ScoreTable {
     }
 
     /**
-     * Get all scores
+     * Get the high scores
      * 
-     * @return ArrayList with Scores 
+     * @return ArrayList with the best MineConstants.MAXSCORES Scores
      */
     public ArrayList<Score> getScoreList() {
-        return scores;
+        return getTopScores(MineConstants.MAXSCORES);
+    }
+
+    /**
+     * Get the best scores
+     * 
+     * @param count number of scores to get
+     * @return ArrayList with at most count best Scores
+     */
+    public ArrayList<Score> getTopScores(int count) {
+        return scores.getPage(0, count);
+    }
+
+    /**
+     * Get a page of scores by rank
+     * 
+     * @param from index of first score on page
+     * @param count maximum number of scores on page
+     * @return ArrayList with the Scores on the page
+     */
+    public ArrayList<Score> getPage(int from, int count) {
+        return scores.getPage(from, count);
+    }
+
+    /**
+     * Get a page of scores by rank in the given order
+     * 
+     * @param from index of first score on page
+     * @param count maximum number of scores on page
+     * @param order BY_TIME or BY_EFFICIENCY
+     * @return ArrayList with the Scores on the page
+     */
+    public ArrayList<Score> getPage(int from, int count, int order) {
+        return order == BY_EFFICIENCY ? efficiencies.getPage(from, count) : scores.getPage(from, count);
+    }
+
+    /**
+     * Get number of scores in table
+     * 
+     * @return number of scores
+     */
+    public int size() {
+        return scores.size();
+    }
+
+    /**
+     * Get the index the given score would be inserted into, 0 being the best
+     * 
+     * @param score score to check
+     * @return rank the score would get
+     */
+    public int getRank(double score) {
+        return scores.rank(score);
+    }
+
+    /**
+     * Get the index a score with the given efficiency would be inserted into when ranked by efficiency, 0 being the best
+     * 
+     * @param bbbvPerSecond 3BV/s to check
+     * @return rank the efficiency would get
+     */
+    public int getEfficiencyRank(double bbbvPerSecond) {
+        return efficiencies.rank(-bbbvPerSecond);
     }
 
     /**
@@ -63,17 +152,8 @@ public class ScoreTable {
      * @return would the score be inserted into this table
      */
     public boolean isHighScore(double score) {
-        // iterate through all scores in table, if given score is better (smaller) than any of them, return true
-        for (int i = 0; i < 10 && i < scores.size(); i++) {
-            if (score < scores.get(i).getScore()) {
-                return true;
-            }
-        }
-        // if score list still has room, return true
-        if (scores.size() < MineConstants.MAXSCORES) {
-            return true;
-        }
-        return false;
+        // the score is a high score if it would be inserted among the first MAXSCORES scores
+        return getRank(score) < MineConstants.MAXSCORES;
     }
     
     /**
@@ -83,37 +163,187 @@ public class ScoreTable {
      * @param score score to insert
      */
     public void addScore(String name, double score) {
-        // iterate through each index of list
-        for (int i = 0; i < MineConstants.MAXSCORES; i++) {
-            // if list has fewer entries than max, add score to available index
-            if (i >= scores.size()) {
-                scores.add(i, new Score(name, score));
-                return;
-            // if this score is better than score at index, insert score into index
-            // the ArrayList will push worse scores down the list
-            } else if (score < scores.get(i).getScore()) {
-                scores.add(i, new Score(name, score));
-                
-                // if list is now longer than max, remove last entry
-                if (scores.size() > MineConstants.MAXSCORES) {
-                    scores.remove(MineConstants.MAXSCORES);
-                }
-                return;
-            }
+        addScore(name, score, 0);
+    }
+
+    /**
+     * Insert score into table
+     * 
+     * @param name score holder's name
+     * @param score score to insert
+     * @param bbbv 3BV of the board, 0 if unknown
+     */
+    public void addScore(String name, double score, int bbbv) {
+        Score newScore = new Score(name, score, bbbv);
+        scores.insert(newScore);
+        efficiencies.insert(newScore);
+        pendingScores.add(newScore);
+        changed = true;
+    }
+
+    /**
+     * Insert score read from file into table. Unlike addScore, this doesn't count as a change.
+     * 
+     * @param name score holder's name
+     * @param score score to insert
+     */
+    public void addLoadedScore(String name, double score) {
+        addLoadedScore(name, score, 0);
+    }
+
+    /**
+     * Insert score read from file into table. Unlike addScore, this doesn't count as a change.
+     * 
+     * @param name score holder's name
+     * @param score score to insert
+     * @param bbbv 3BV of the board, 0 if unknown
+     */
+    public void addLoadedScore(String name, double score, int bbbv) {
+        Score newScore = new Score(name, score, bbbv);
+        scores.insert(newScore);
+        efficiencies.insert(newScore);
+    }
+
+    /**
+     * Has the table changed since it was loaded or saved?
+     * 
+     * @return has table changed?
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Get the scores added since the table was last loaded or saved
+     * 
+     * @return added scores
+     */
+    public ArrayList<Score> getPendingScores() {
+        return pendingScores;
+    }
+
+    /**
+     * Get the game times added since the table was last loaded or saved
+     * 
+     * @return sketch of added game times
+     */
+    public QuantileSketch getPendingGameTimes() {
+        return pendingGameTimes;
+    }
+
+    /**
+     * Forget the changes made since the table was last loaded or saved, after they have been saved
+     */
+    public void clearChanges() {
+        pendingScores = new ArrayList<>();
+        pendingGameTimes = new QuantileSketch();
+        changed = false;
+    }
+
+    /**
+     * Get sequence number of the segment the table was loaded from or saved to
+     * 
+     * @return sequence number, 0 if table has no segment
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Set sequence number of the segment the table was loaded from or saved to
+     * 
+     * @param sequence sequence number
+     */
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Replace the scores and game times of this table with those of another table, e.g. a newer version read from file.
+     * Changes not yet saved are kept only if they are also in the other table.
+     * 
+     * @param other table to copy
+     */
+    public void replaceContents(ScoreTable other) {
+        scores = other.scores;
+        efficiencies = other.efficiencies;
+        gameTimes = other.gameTimes;
+        sequence = other.sequence;
+    }
+
+    /**
+     * Record the time of a finished game in the game time distribution
+     * 
+     * @param time game time in seconds
+     */
+    public void addGameTime(double time) {
+        gameTimes.update(time);
+        pendingGameTimes.update(time);
+        changed = true;
+    }
+
+    /**
+     * Merge game times from another sketch into the game time distribution
+     * 
+     * @param other sketch of game times to add
+     */
+    public void mergeGameTimes(QuantileSketch other) {
+        gameTimes.merge(other);
+        pendingGameTimes.merge(other);
+        changed = true;
+    }
+
+    /**
+     * Get the estimated fraction of recorded games that were slower than the given time
+     * 
+     * @param time game time in seconds
+     * @return fraction between 0 and 1, 0 if no games recorded
+     */
+    public double getFasterThanFraction(double time) {
+        if (gameTimes.getCount() == 0) {
+            return 0;
         }
+        return 1 - gameTimes.getRank(time);
+    }
+
+    /**
+     * Get the distribution of recorded game times
+     * 
+     * @return sketch of game times
+     */
+    public QuantileSketch getGameTimes() {
+        return gameTimes;
+    }
+
+    /**
+     * Replace the distribution of recorded game times, e.g. with one read from file
+     * 
+     * @param gameTimes sketch of game times
+     */
+    public void setGameTimes(QuantileSketch gameTimes) {
+        this.gameTimes = gameTimes;
+    }
+
+    /**
+     * Iterate through all scores from best to worst
+     * 
+     * @return iterator over all scores
+     */
+    @Override
+    public Iterator<Score> iterator() {
+        return scores.iterator();
     }
     
     /**
-     * Return String representation of Score table. This is used to write scores to file
-     * @return 
+     * Return String representation of Score table.
+     * @return each score on its own line in format &lt;difficulty&gt;;&lt;name&gt;;&lt;score&gt;
      */
     @Override
     public String toString() {
-        // write each score on own line in format <difficulty>;<name>;<score>
-        String returnValue = "";
+        StringBuilder sb = new StringBuilder();
         for (Score score : scores) {
-            returnValue += difficulty + ";" + score.getName() + ";" + score.getScore() + "\n";
+            sb.append(difficulty).append(';').append(score.getName()).append(';').append(score.getScore()).append('\n');
         }
-        return returnValue;
+        return sb.toString();
     }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.ArrayList;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * This class is a table model showing one page of the scores of one difficulty.
+ * Only the shown page is copied from the ScoreTable, so only the visible rows are read, no matter how many scores there are.
+ * The page is copied on the I/O thread and handed to the event dispatch thread, so rendering the table never waits for the score files.
+ * The model listens to the ScoreHandler and copies the page again when the scores change.
+ * Scores are ranked by time, or by efficiency (3BV/s) after setOrder(ScoreTable.BY_EFFICIENCY).
+ *
+ * @author Badi Moore
+ */
+public class ScoreTableModel extends AbstractTableModel implements ScoreListener {
+
+    private static final String[] COLUMN_NAMES = {"Name", "Score (s)", "3BV/s"};
+    private static final Class<?>[] COLUMN_CLASSES = {String.class, Double.class, Double.class};
+
+    private final ScoreHandler scoreHandler;
+    private final String difficulty;
+    private final int pageSize;
+    private volatile int page; // index of requested page
+    private volatile int order; // ScoreTable.BY_TIME or ScoreTable.BY_EFFICIENCY
+    private ScorePage shown; // copy of the shown page, only used on the event dispatch thread
+
+    /**
+     * Create new ScoreTableModel and start listening to score changes
+     *
+     * @param scoreHandler ScoreHandler to read scores from
+     * @param difficulty difficulty of scores to show
+     * @param pageSize number of scores on one page
+     */
+    public ScoreTableModel(ScoreHandler scoreHandler, String difficulty, int pageSize) {
+        this.scoreHandler = scoreHandler;
+        this.difficulty = difficulty;
+        this.pageSize = pageSize;
+        page = 0;
+        order = ScoreTable.BY_TIME;
+        shown = new ScorePage(0, 0, new ArrayList<>(), 0);
+        scoreHandler.addScoreListener(this);
+        loadPage();
+    }
+
+    /**
+     * Stop listening to score changes. Call this when the model is no longer used.
+     */
+    public void dispose() {
+        scoreHandler.removeScoreListener(this);
+    }
+
+    /**
+     * Get number of rows. The table always shows at least MineConstants.MAXSCORES rows, empty rows are shown if there are fewer scores.
+     *
+     * @return number of rows on current page
+     */
+    @Override
+    public int getRowCount() {
+        return Math.max(MineConstants.MAXSCORES, shown.getScores().size());
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return COLUMN_CLASSES[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    /**
+     * Get the value of a cell: the name (with placement prefix) in column 0, the score in column 1 and 3BV/s in column 2.
+     * Empty rows and scores without 3BV have null values.
+     *
+     * @param row row on current page
+     * @param column column
+     * @return cell value
+     */
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (row >= shown.getScores().size()) {
+            return null;
+        }
+        Score score = shown.getScores().get(row);
+        if (column == 0) {
+            return getPosString(shown.getFirst() + row + 1) + score.getName();
+        }
+        if (column == 1) {
+            return score.getScore();
+        }
+        if (score.getBbbv() == 0) {
+            return null;
+        }
+        return Math.round(score.getBbbvPerSecond() * 100) / 100.0; // two decimals
+    }
+
+    /**
+     * Is there a page before the current one?
+     *
+     * @return is there a previous page?
+     */
+    public boolean hasPreviousPage() {
+        return shown.getPage() > 0;
+    }
+
+    /**
+     * Is there a page after the current one?
+     *
+     * @return is there a next page?
+     */
+    public boolean hasNextPage() {
+        return (shown.getPage() + 1) * pageSize < shown.getTotalScores();
+    }
+
+    /**
+     * Show previous page, if there is one
+     */
+    public void previousPage() {
+        if (hasPreviousPage()) {
+            page = shown.getPage() - 1;
+            loadPage();
+        }
+    }
+
+    /**
+     * Show next page, if there is one
+     */
+    public void nextPage() {
+        if (hasNextPage()) {
+            page = shown.getPage() + 1;
+            loadPage();
+        }
+    }
+
+    /**
+     * Get the order the scores are ranked in
+     *
+     * @return ScoreTable.BY_TIME or ScoreTable.BY_EFFICIENCY
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * Rank the scores in another order and show the first page
+     *
+     * @param order ScoreTable.BY_TIME or ScoreTable.BY_EFFICIENCY
+     */
+    public void setOrder(int order) {
+        if (order != this.order) {
+            this.order = order;
+            page = 0;
+            loadPage();
+        }
+    }
+
+    /**
+     * Refresh the table when the scores of this difficulty have changed
+     *
+     * @param changedDifficulty difficulty of changed scores, or null if all scores changed
+     */
+    @Override
+    public void scoresChanged(String changedDifficulty) {
+        if (changedDifficulty != null && !changedDifficulty.equals(difficulty)) {
+            return;
+        }
+        loadPage();
+    }
+
+    /**
+     * Copy the requested page on the I/O thread and show it on the event dispatch thread.
+     * The I/O thread copies pages in the order they were requested, so the last requested page is shown last.
+     */
+    private void loadPage() {
+        scoreHandler.getPageAsync(difficulty, page, pageSize, order).thenAcceptAsync(copied -> {
+            // table models may only be changed on the event dispatch thread
+            shown = copied;
+            page = copied.getPage(); // if scores were reset, the requested page may no longer exist
+            fireTableDataChanged();
+        }, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Generate prefix string for the name value in the score table.
+     * The string should contain the score's placement and enough whitespace
+     * to align the names with single digit placements with the names with double digit placements.
+     * Thus the name "Badi" at first placement would show up as "1.   Badi" combined with the return value.
+     *
+     * @param i the score's placement number
+     * @return the prefix string for given placement
+     */
+    private String getPosString(int i) {
+        if (i < 10) {
+            return i + ".   ";
+        }
+        return i + ". ";
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * This class keeps track of the sessions of the GameServer.
+ * The sessions are split into MineConstants.SESSION_SHARDS shards by id, each with its own lock, so requests for different sessions rarely wait for each other.
+ *
+ * Sessions that haven't been used for MineConstants.SESSION_IDLE_TIMEOUT are parked by evictIdle(): they are kept only in their compact
+ * serialized form and restored on their next use. Sessions with spectators are not parked. Parked sessions are forgotten after MineConstants.SESSION_EXPIRY.
+ *
+ * @author Badi Moore
+ */
+public class SessionRegistry {
+
+    private final Shard[] shards;
+    private final AtomicLong nextId;
+
+    /**
+     * One shard of the registry. All access to its maps is synchronized on the shard.
+     */
+    private static class Shard {
+
+        private final HashMap<Long, GameSession> live = new HashMap<>();
+        private final HashMap<Long, byte[]> parked = new HashMap<>(); // serialized sessions by id
+        private final HashMap<Long, Long> parkedAt = new HashMap<>(); // time each session was parked in ms
+    }
+
+    /**
+     * Create new empty registry
+     */
+    public SessionRegistry() {
+        shards = new Shard[MineConstants.SESSION_SHARDS];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+        nextId = new AtomicLong(1);
+    }
+
+    /**
+     * Create a session with a new game
+     *
+     * @param width number of tiles in x-dimension
+     * @param height number of tiles in y-dimension
+     * @param mines number of mines
+     * @return the new session
+     */
+    public GameSession create(int width, int height, int mines) {
+        return create(MineFieldFactory.createMineField(width, height, mines), mines);
+    }
+
+    /**
+     * Create a session with a new game on a generated board
+     *
+     * @param grid board created by MineFieldFactory
+     * @param mines number of mines
+     * @return the new session
+     */
+    public GameSession create(MineCoordinate[][] grid, int mines) {
+        // the board is generated before taking the shard's lock
+        GameSession session = GameSession.create(nextId.getAndIncrement(), grid, mines);
+        Shard shard = getShard(session.getId());
+        synchronized (shard) {
+            shard.live.put(session.getId(), session);
+        }
+        return session;
+    }
+
+    /**
+     * Run an action on a session while holding the session's lock. A parked session is restored first.
+     *
+     * @param <T> type of result
+     * @param id session id
+     * @param action action to run
+     * @return result of action, or null if there is no such session
+     * @throws IOException if a parked session can't be restored
+     */
+    public <T> T apply(long id, Function<GameSession, T> action) throws IOException {
+        while (true) {
+            GameSession session = get(id);
+            if (session == null) {
+                return null;
+            }
+            synchronized (session) {
+                // the session may have been parked between get() and taking its lock, then it is restored again
+                if (!session.isParked()) {
+                    session.touch();
+                    return action.apply(session);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove a session
+     *
+     * @param id session id
+     * @return was there such a session?
+     */
+    public boolean remove(long id) {
+        Shard shard = getShard(id);
+        synchronized (shard) {
+            shard.parkedAt.remove(id);
+            return shard.live.remove(id) != null | shard.parked.remove(id) != null;
+        }
+    }
+
+    /**
+     * Park sessions that have been idle too long and forget parked sessions that have expired
+     *
+     * @param now current time in ms
+     * @return number of sessions parked
+     */
+    public int evictIdle(long now) {
+        int count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Iterator<GameSession> it = shard.live.values().iterator();
+                while (it.hasNext()) {
+                    GameSession session = it.next();
+                    if (now - session.getLastAccess() < MineConstants.SESSION_IDLE_TIMEOUT) {
+                        continue;
+                    }
+                    synchronized (session) {
+                        // spectators would lose the game if it was parked
+                        if (session.hasSpectators()) {
+                            continue;
+                        }
+                        shard.parked.put(session.getId(), session.park());
+                        shard.parkedAt.put(session.getId(), now);
+                    }
+                    it.remove();
+                    count++;
+                }
+                Iterator<Map.Entry<Long, Long>> parkedIt = shard.parkedAt.entrySet().iterator();
+                while (parkedIt.hasNext()) {
+                    Map.Entry<Long, Long> entry = parkedIt.next();
+                    if (now - entry.getValue() >= MineConstants.SESSION_EXPIRY) {
+                        shard.parked.remove(entry.getKey());
+                        parkedIt.remove();
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get number of live (not parked) sessions
+     *
+     * @return number of live sessions
+     */
+    public int getLiveCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.live.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get number of parked sessions
+     *
+     * @return number of parked sessions
+     */
+    public int getParkedCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.parked.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get a session, restoring it if it is parked
+     *
+     * @param id session id
+     * @return the session, or null if there is no such session
+     * @throws IOException if a parked session can't be restored
+     */
+    private GameSession get(long id) throws IOException {
+        Shard shard = getShard(id);
+        synchronized (shard) {
+            GameSession session = shard.live.get(id);
+            if (session != null) {
+                return session;
+            }
+            byte[] data = shard.parked.remove(id);
+            if (data == null) {
+                return null;
+            }
+            shard.parkedAt.remove(id);
+            session = GameSession.deserialize(data);
+            shard.live.put(id, session);
+            return session;
+        }
+    }
+
+    /**
+     * Get the shard a session belongs to
+     *
+     * @param id session id
+     * @return shard of session
+     */
+    private Shard getShard(long id) {
+        // ids are consecutive, so they are spread evenly over the shards by their low bits
+        return shards[(int) Math.floorMod(id, (long) shards.length)];
+    }
+}
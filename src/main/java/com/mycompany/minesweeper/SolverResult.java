@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+/**
+ * This class holds the result of a MineSolver: the probability of a mine on each unrevealed, unflagged tile.
+ * A probability of exactly 0 or 1 means the tile is certainly safe or certainly a mine.
+ * If the solver ran out of time, some probabilities are estimates and isComplete returns false.
+ * Estimates are never exactly 0 or 1, so isSafe and isMine only report certain tiles even then.
+ *
+ * @author Badi Moore
+ */
+public class SolverResult {
+
+    private final int height;
+    private final double[] probabilities; // mine probability by x * height + y, -1 for revealed and flagged tiles
+    private final boolean complete;
+
+    /**
+     * Create new SolverResult
+     *
+     * @param height number of tiles in y-dimension
+     * @param probabilities mine probability of each tile, -1 for tiles that aren't hidden
+     * @param complete are all probabilities exact?
+     */
+    public SolverResult(int height, double[] probabilities, boolean complete) {
+        this.height = height;
+        this.probabilities = probabilities;
+        this.complete = complete;
+    }
+
+    /**
+     * Get the mine probability of a tile
+     *
+     * @param x X-coordinate of tile
+     * @param y Y-coordinate of tile
+     * @return probability between 0 and 1, or -1 if the tile is revealed or flagged
+     */
+    public double getProbability(int x, int y) {
+        return probabilities[x * height + y];
+    }
+
+    /**
+     * Is a tile certainly safe?
+     *
+     * @param x X-coordinate of tile
+     * @param y Y-coordinate of tile
+     * @return is tile hidden and certainly not a mine?
+     */
+    public boolean isSafe(int x, int y) {
+        return getProbability(x, y) == 0;
+    }
+
+    /**
+     * Is a tile certainly a mine?
+     *
+     * @param x X-coordinate of tile
+     * @param y Y-coordinate of tile
+     * @return is tile hidden and certainly a mine?
+     */
+    public boolean isMine(int x, int y) {
+        return getProbability(x, y) == 1;
+    }
+
+    /**
+     * Get the hidden tile least likely to be a mine
+     *
+     * @return tile as x * height + y, or -1 if no tile is hidden
+     */
+    public int getBestTile() {
+        int best = -1;
+        for (int tile = 0; tile < probabilities.length; tile++) {
+            if (probabilities[tile] >= 0 && (best == -1 || probabilities[tile] < probabilities[best])) {
+                best = tile;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Get X-coordinate of a tile returned by getBestTile
+     *
+     * @param tile tile as x * height + y
+     * @return X-coordinate
+     */
+    public int getX(int tile) {
+        return tile / height;
+    }
+
+    /**
+     * Get Y-coordinate of a tile returned by getBestTile
+     *
+     * @param tile tile as x * height + y
+     * @return Y-coordinate
+     */
+    public int getY(int tile) {
+        return tile % height;
+    }
+
+    /**
+     * Are all probabilities exact? If the solver ran out of time, some are estimates.
+     *
+     * @return is result complete?
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+}
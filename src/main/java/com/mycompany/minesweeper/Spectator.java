@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class is one spectator of a game. Frames for the spectator are queued and sent by a sender thread,
+ * so a slow spectator never blocks the player.
+ *
+ * The queue holds at most MineConstants.SPECTATOR_QUEUE_FRAMES frames. If it is full, the queued frames are dropped and the spectator
+ * gets a keyframe with the current board next instead, so a spectator that falls behind skips ahead rather than slowing anyone down.
+ * A spectator that falls behind too often is disconnected.
+ *
+ * @author Badi Moore
+ */
+public class Spectator {
+
+    private final SpectatorHub hub;
+    private final OutputStream out;
+    private final Executor sender;
+    private final ArrayBlockingQueue<byte[]> frames;
+    private final AtomicBoolean sending; // is a sender thread currently writing this spectator's frames?
+    private volatile boolean needsKeyframe; // were frames dropped, so the next frame must be a keyframe?
+    private volatile boolean closed;
+    private int overflows; // number of times the queue has been full, only used by the publishing thread
+
+    /**
+     * Create new spectator
+     *
+     * @param hub hub the spectator belongs to
+     * @param out stream the frames are written to
+     * @param sender executor running the sender threads
+     */
+    public Spectator(SpectatorHub hub, OutputStream out, Executor sender) {
+        this.hub = hub;
+        this.out = out;
+        this.sender = sender;
+        frames = new ArrayBlockingQueue<>(MineConstants.SPECTATOR_QUEUE_FRAMES);
+        sending = new AtomicBoolean(false);
+        needsKeyframe = true;
+        closed = false;
+        overflows = 0;
+    }
+
+    /**
+     * Does the spectator need a keyframe instead of the next delta?
+     *
+     * @return is a keyframe needed?
+     */
+    public boolean needsKeyframe() {
+        return needsKeyframe;
+    }
+
+    /**
+     * Queue a frame for sending. This never blocks.
+     *
+     * @param frame the frame
+     * @param keyframe is the frame a keyframe?
+     */
+    public void offer(byte[] frame, boolean keyframe) {
+        if (closed) {
+            return;
+        }
+        if (!frames.offer(frame)) {
+            // spectator has fallen behind: drop what it hasn't received yet and skip ahead with a keyframe
+            frames.clear();
+            needsKeyframe = true;
+            if (++overflows > MineConstants.SPECTATOR_MAX_OVERFLOWS) {
+                close();
+            }
+            return;
+        }
+        if (keyframe) {
+            needsKeyframe = false;
+        }
+        if (sending.compareAndSet(false, true)) {
+            sender.execute(this::send);
+        }
+    }
+
+    /**
+     * Stop sending frames and close the stream
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        hub.remove(this);
+        frames.clear();
+        try {
+            out.close();
+        } catch (IOException e) {
+            // spectator is gone anyway
+        }
+    }
+
+    /**
+     * Write queued frames until the queue is empty. Runs on a sender thread.
+     */
+    private void send() {
+        try {
+            while (true) {
+                byte[] frame;
+                while ((frame = frames.poll()) != null) {
+                    out.write(frame);
+                }
+                out.flush();
+                sending.set(false);
+                // a frame may have been queued after the last poll, but before sending was cleared
+                if (frames.isEmpty() || !sending.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            sending.set(false);
+            close();
+        }
+    }
+}
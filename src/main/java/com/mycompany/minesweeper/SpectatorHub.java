@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.io.OutputStream;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class sends the moves of one game to its spectators.
+ * After each move, the changed tiles are encoded once as a BoardDelta and the same frame is queued for every spectator.
+ * A keyframe is only encoded when a spectator needs one: when it starts watching, after it has fallen behind,
+ * for everyone every MineConstants.SPECTATOR_KEYFRAME_INTERVAL moves, and for everyone when the game is lost.
+ *
+ * subscribe and publish must be called while holding the game's lock, so spectators see the moves in order.
+ *
+ * @author Badi Moore
+ */
+public class SpectatorHub {
+
+    // threads writing frames to spectators, shared by all games
+    // a thread is only busy while a spectator has queued frames, so the pool only grows with the number of spectators being written to at once
+    private static final ExecutorService SENDER = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Minesweeper spectator sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CopyOnWriteArrayList<Spectator> spectators;
+    private long sequence; // number of moves published
+
+    /**
+     * Create new hub without spectators
+     */
+    public SpectatorHub() {
+        spectators = new CopyOnWriteArrayList<>();
+        sequence = 0;
+    }
+
+    /**
+     * Add a spectator. The spectator first gets a keyframe of the current board.
+     *
+     * @param game the game
+     * @param out stream the spectator's frames are written to
+     * @return the new spectator
+     */
+    public Spectator subscribe(GameSession game, OutputStream out) {
+        Spectator spectator = new Spectator(this, out, SENDER);
+        spectator.offer(BoardDelta.encodeKeyframe(game, sequence), true);
+        spectators.add(spectator);
+        return spectator;
+    }
+
+    /**
+     * Send the tiles changed by the game's last move to all spectators
+     *
+     * @param game the game
+     */
+    public void publish(GameSession game) {
+        sequence++;
+        if (spectators.isEmpty()) {
+            return;
+        }
+        // a lost game shows all mines, which aren't among the changed tiles, so everyone gets the final board
+        boolean periodicKeyframe = sequence % MineConstants.SPECTATOR_KEYFRAME_INTERVAL == 0
+                || game.getLogic().getWinState() == MineLogic.LOST;
+        byte[] delta = null;
+        byte[] keyframe = null;
+        for (Spectator spectator : spectators) {
+            if (periodicKeyframe || spectator.needsKeyframe()) {
+                if (keyframe == null) {
+                    keyframe = BoardDelta.encodeKeyframe(game, sequence);
+                }
+                spectator.offer(keyframe, true);
+            } else {
+                if (delta == null) {
+                    delta = BoardDelta.encodeDelta(game, sequence);
+                }
+                spectator.offer(delta, false);
+            }
+        }
+    }
+
+    /**
+     * Does the game have spectators?
+     *
+     * @return are there spectators?
+     */
+    public boolean hasSpectators() {
+        return !spectators.isEmpty();
+    }
+
+    /**
+     * Disconnect all spectators, e.g. when the game ends
+     */
+    public void closeAll() {
+        for (Spectator spectator : spectators) {
+            spectator.close();
+        }
+    }
+
+    /**
+     * Remove a spectator, called by the spectator when it is closed
+     *
+     * @param spectator spectator to remove
+     */
+    public void remove(Spectator spectator) {
+        spectators.remove(spectator);
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2021 Badi Moore
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.mycompany.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * This class describes which tiles of a board are neighbours. Besides the rectangular grid there are
+ * a wrap-around torus, hexagonal tiles and a 3D cube. Every board is stored as a 2d grid of MineCoordinates:
+ * - RECTANGLE: up to eight neighbours in the 3x3 box
+ * - TORUS: like RECTANGLE, but the left edge is next to the right edge and the top edge next to the bottom edge
+ * - HEX: columns of hexagons, odd columns shifted down by half a tile, six neighbours
+ * - CUBE: layers of the cube side by side, layer z at x-coordinates z * layer width to (z + 1) * layer width - 1, up to 26 neighbours
+ *
+ * Neighbours are precomputed into compressed arrays in the layout of getPaddedGrid(): the neighbours of the tile at index i are
+ * getNeighbours()[getNeighbourStart()[i]] to getNeighbours()[getNeighbourStart()[i + 1] - 1], and border entries have none.
+ * Loops over them are plain array reads, as fast for any topology as the hand-written 3x3 loops.
+ * Rectangles are handled by PaddedGrid's offsets instead, so their arrays are only built if asked for.
+ * On cubes a tile can have more than eight adjacent mines.
+ *
+ * @author Badi Moore
+ */
+public class Topology {
+
+    // kinds of topology
+    public static final int RECTANGLE = 0;
+    public static final int TORUS = 1;
+    public static final int HEX = 2;
+    public static final int CUBE = 3;
+
+    public static final int MAX_NEIGHBOURS = 26; // most neighbours a tile can have, on a cube
+
+    private final int kind;
+    private final int width; // width of the 2d grid storing the board
+    private final int height;
+    private final int depth; // number of cube layers, 1 for flat boards
+    private final PaddedGrid paddedGrid;
+    private int[] neighbourStart; // start of each tile's neighbours in neighbours, by padded index, or null if not built yet
+    private int[] neighbours; // padded indexes of every tile's neighbours
+    private int neighbourCount; // number of entries in neighbours while building
+
+    /**
+     * Create new topology
+     *
+     * @param kind RECTANGLE, TORUS, HEX or CUBE
+     * @param width width of the 2d grid storing the board
+     * @param height height of the board
+     * @param depth number of cube layers, 1 for flat boards
+     */
+    private Topology(int kind, int width, int height, int depth) {
+        this.kind = kind;
+        this.width = width;
+        this.height = height;
+        this.depth = depth;
+        paddedGrid = new PaddedGrid(width, height);
+        if (kind != RECTANGLE) {
+            buildNeighbours();
+        }
+    }
+
+    /**
+     * Create a rectangular board
+     *
+     * @param width number of tiles in x-dimension
+     * @param height number of tiles in y-dimension
+     * @return topology of board
+     */
+    public static Topology rectangle(int width, int height) {
+        return new Topology(RECTANGLE, width, height, 1);
+    }
+
+    /**
+     * Create a board whose edges wrap around
+     *
+     * @param width number of tiles in x-dimension
+     * @param height number of tiles in y-dimension
+     * @return topology of board
+     */
+    public static Topology torus(int width, int height) {
+        return new Topology(TORUS, width, height, 1);
+    }
+
+    /**
+     * Create a board of hexagonal tiles
+     *
+     * @param width number of columns
+     * @param height number of tiles in each column
+     * @return topology of board
+     */
+    public static Topology hex(int width, int height) {
+        return new Topology(HEX, width, height, 1);
+    }
+
+    /**
+     * Create a 3D cube board. It is stored as a grid of width * depth times height tiles.
+     *
+     * @param width number of tiles in x-dimension of each layer
+     * @param height number of tiles in y-dimension of each layer
+     * @param depth number of layers
+     * @return topology of board
+     */
+    public static Topology cube(int width, int height, int depth) {
+        return new Topology(CUBE, width * depth, height, depth);
+    }
+
+    /**
+     * Get kind of topology
+     *
+     * @return RECTANGLE, TORUS, HEX or CUBE
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * Get width of the 2d grid storing the board. For cubes this is the width of a layer times the number of layers.
+     *
+     * @return number of tiles in x-dimension of the grid
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get height of the board
+     *
+     * @return number of tiles in y-dimension
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get number of cube layers
+     *
+     * @return number of layers, 1 for flat boards
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the padded layout the neighbour arrays use
+     *
+     * @return padded grid of board
+     */
+    public PaddedGrid getPaddedGrid() {
+        return paddedGrid;
+    }
+
+    /**
+     * Get start of each tile's neighbours in getNeighbours(), by padded index, plus the end of the last tile's neighbours.
+     * The array is shared, don't modify it.
+     *
+     * @return neighbour starts
+     */
+    public int[] getNeighbourStart() {
+        if (neighbourStart == null) {
+            buildNeighbours();
+        }
+        return neighbourStart;
+    }
+
+    /**
+     * Get the padded indexes of every tile's neighbours, grouped by tile. The array is shared, don't modify it.
+     *
+     * @return neighbours
+     */
+    public int[] getNeighbours() {
+        if (neighbourStart == null) {
+            buildNeighbours();
+        }
+        return neighbours;
+    }
+
+    /**
+     * Build the neighbour arrays
+     */
+    private synchronized void buildNeighbours() {
+        if (neighbourStart != null) {
+            return;
+        }
+        int[] start = new int[paddedGrid.getSize() + 1];
+        neighbours = new int[width * height * (kind == CUBE ? MAX_NEIGHBOURS : 8)];
+        neighbourCount = 0;
+        for (int tile = 0; tile < paddedGrid.getSize(); tile++) {
+            start[tile] = neighbourCount;
+            int x = paddedGrid.getX(tile);
+            int y = paddedGrid.getY(tile);
+            // border entries have no neighbours
+            if (x < 0 || x >= width || y < 0 || y >= height) {
+                continue;
+            }
+            addNeighbours(x, y);
+        }
+        start[paddedGrid.getSize()] = neighbourCount;
+        neighbours = Arrays.copyOf(neighbours, neighbourCount);
+        neighbourStart = start;
+    }
+
+    /**
+     * Add the neighbours of one tile to the neighbour array
+     *
+     * @param x X-coordinate of tile in the 2d grid
+     * @param y Y-coordinate of tile in the 2d grid
+     */
+    private void addNeighbours(int x, int y) {
+        int start = neighbourCount;
+        switch (kind) {
+            case RECTANGLE:
+                for (int i = x - 1; i <= x + 1; i++) {
+                    for (int j = y - 1; j <= y + 1; j++) {
+                        addNeighbour(start, x, y, i, j);
+                    }
+                }
+                break;
+            case TORUS:
+                for (int i = x - 1; i <= x + 1; i++) {
+                    for (int j = y - 1; j <= y + 1; j++) {
+                        addNeighbour(start, x, y, Math.floorMod(i, width), Math.floorMod(j, height));
+                    }
+                }
+                break;
+            case HEX:
+                // the neighbours in the columns beside are level with the tile and half a tile above it in even columns,
+                // level and half a tile below it in odd columns
+                int side = x % 2 == 0 ? y - 1 : y + 1;
+                addNeighbour(start, x, y, x, y - 1);
+                addNeighbour(start, x, y, x, y + 1);
+                addNeighbour(start, x, y, x - 1, y);
+                addNeighbour(start, x, y, x - 1, side);
+                addNeighbour(start, x, y, x + 1, y);
+                addNeighbour(start, x, y, x + 1, side);
+                break;
+            case CUBE:
+                int layerWidth = width / depth;
+                int z = x / layerWidth;
+                int layerX = x % layerWidth;
+                for (int k = Math.max(z - 1, 0); k <= Math.min(z + 1, depth - 1); k++) {
+                    for (int i = Math.max(layerX - 1, 0); i <= Math.min(layerX + 1, layerWidth - 1); i++) {
+                        addNeighbour(start, x, y, k * layerWidth + i, y - 1);
+                        addNeighbour(start, x, y, k * layerWidth + i, y);
+                        addNeighbour(start, x, y, k * layerWidth + i, y + 1);
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Add a neighbour of a tile, unless it is outside the board, the tile itself or already added
+     * (on a narrow torus the same tile can be reached across both edges)
+     *
+     * @param start start of the tile's neighbours in the neighbour array
+     * @param x X-coordinate of tile
+     * @param y Y-coordinate of tile
+     * @param neighbourX X-coordinate of neighbour
+     * @param neighbourY Y-coordinate of neighbour
+     */
+    private void addNeighbour(int start, int x, int y, int neighbourX, int neighbourY) {
+        if (neighbourX < 0 || neighbourX >= width || neighbourY < 0 || neighbourY >= height
+                || (neighbourX == x && neighbourY == y)) {
+            return;
+        }
+        int neighbour = paddedGrid.index(neighbourX, neighbourY);
+        for (int i = start; i < neighbourCount; i++) {
+            if (neighbours[i] == neighbour) {
+                return;
+            }
+        }
+        neighbours[neighbourCount++] = neighbour;
+    }
+}